@@ -0,0 +1,126 @@
+package benchmarks;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Move generation and game status checks in ChessGame.
+ * <p>
+ * ChessGame caches the side to move's legal moves by position, so reusing one game would only time a cache
+ * lookup after the first call. Each benchmark works on a fresh copy of the fixture instead (see copyGame for
+ * what the copy costs), and validMovesAllPiecesCached times the cache hit on its own.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChessGameBenchmark {
+
+    @Param({"start", "middlegame"})
+    public String position;
+
+    // fixtures are only ever copied, so their move caches stay empty
+    private ChessGame fixture;
+    private ChessGame matedFixture;
+    // a game whose legal moves have already been worked out
+    private ChessGame cached;
+
+    @Setup
+    public void setUp() {
+        fixture = position.equals("start") ? Fixtures.start() : Fixtures.middlegame();
+        matedFixture = Fixtures.checkmate();
+        cached = new ChessGame(fixture);
+        cached.validMoves(firstPieceToMove(cached));
+    }
+
+    /**
+     * Cost of the fresh copy every other benchmark starts from
+     */
+    @Benchmark
+    public ChessGame copyGame() {
+        return new ChessGame(fixture);
+    }
+
+    /**
+     * Legal moves for every piece of the side to move, the way a client highlights or validates moves.
+     * The moves are generated once, on the first piece, and the rest come from the cache
+     */
+    @Benchmark
+    public void validMovesAllPieces(Blackhole bh) {
+        allPieceMoves(new ChessGame(fixture), bh);
+    }
+
+    /**
+     * Same as validMovesAllPieces, but the moves were already worked out for this position
+     */
+    @Benchmark
+    public void validMovesAllPiecesCached(Blackhole bh) {
+        allPieceMoves(cached, bh);
+    }
+
+    @Benchmark
+    public boolean isInCheck() {
+        ChessGame game = new ChessGame(fixture);
+        return game.isInCheck(game.getTeamTurn());
+    }
+
+    /**
+     * Checkmate check on a position that isn't mate (has to find one legal move)
+     */
+    @Benchmark
+    public boolean isInCheckmateNotMated() {
+        ChessGame game = new ChessGame(fixture);
+        return game.isInCheckmate(game.getTeamTurn());
+    }
+
+    /**
+     * Checkmate check on an actual mate (has to rule out every move)
+     */
+    @Benchmark
+    public boolean isInCheckmateMated() {
+        return new ChessGame(matedFixture).isInCheckmate(ChessGame.TeamColor.WHITE);
+    }
+
+    @Benchmark
+    public boolean isInStalemate() {
+        ChessGame game = new ChessGame(fixture);
+        return game.isInStalemate(game.getTeamTurn());
+    }
+
+    //-------------------------------------------------------------------------------------------------------------
+    // Helper Functions
+    //-------------------------------------------------------------------------------------------------------------
+
+    private static void allPieceMoves(ChessGame game, Blackhole bh) {
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                ChessPosition position = ChessPosition.of(row, col);
+                var piece = game.getBoard().getPiece(position);
+                if (piece != null && piece.getTeamColor() == game.getTeamTurn()) {
+                    Collection<ChessMove> moves = game.validMoves(position);
+                    bh.consume(moves);
+                }
+            }
+        }
+    }
+
+    private static ChessPosition firstPieceToMove(ChessGame game) {
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                var piece = game.getBoard().getPiece(ChessPosition.of(row, col));
+                if (piece != null && piece.getTeamColor() == game.getTeamTurn()) {
+                    return ChessPosition.of(row, col);
+                }
+            }
+        }
+        throw new IllegalStateException("no pieces to move");
+    }
+}
@@ -0,0 +1,72 @@
+package benchmarks;
+
+import org.eclipse.jetty.websocket.api.RemoteEndpoint;
+import org.eclipse.jetty.websocket.api.Session;
+import org.openjdk.jmh.annotations.*;
+import server.websocket.ConnectionManager;
+import websocket.messages.NotificationMessage;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * WebSocket fan-out cost of broadcasting one message to a game as the number of connected users grows
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConnectionManagerBenchmark {
+
+    // two players and one observer per game
+    private static final int USERS_PER_GAME = 3;
+
+    @Param({"30", "3000", "30000"})
+    public int connectedUsers;
+
+    private ConnectionManager manager;
+    private NotificationMessage message;
+
+    @Setup
+    public void setUp() {
+        manager = new ConnectionManager();
+        Session session = openSession();
+        for (int i = 0; i < connectedUsers; i++) {
+            manager.add("user" + i, i / USERS_PER_GAME, session);
+        }
+        message = new NotificationMessage("user0 moved e2 to e4");
+    }
+
+    @Benchmark
+    public void broadcastAll() throws IOException {
+        manager.broadcastAll(0, message);
+    }
+
+    @Benchmark
+    public void broadcastExcept() throws IOException {
+        manager.broadcastExcept(0, "user0", message);
+    }
+
+    /**
+     *
+     * makes a Jetty session that's always open and throws away anything sent on it,
+     * so the benchmark measures the manager and message serialization rather than I/O
+     *
+     * @return stub session
+     */
+    private static Session openSession() {
+        RemoteEndpoint remote = (RemoteEndpoint) Proxy.newProxyInstance(RemoteEndpoint.class.getClassLoader(),
+                new Class<?>[]{RemoteEndpoint.class}, (proxy, method, args) -> null);
+        return (Session) Proxy.newProxyInstance(Session.class.getClassLoader(), new Class<?>[]{Session.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "isOpen" -> true;
+                    case "getRemote" -> remote;
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> null;
+                });
+    }
+}
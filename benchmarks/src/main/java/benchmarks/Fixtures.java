@@ -0,0 +1,39 @@
+package benchmarks;
+
+import chess.ChessGame;
+
+/**
+ * Shared positions for the benchmarks
+ */
+final class Fixtures {
+
+    // Italian game after a few developing moves, white to move
+    static final String MIDDLEGAME_FEN = "r1bqk2r/1pp2ppp/p1np1n2/2b1p3/2B1P3/2PP1N2/PP1N1PPP/R1BQK2R w - - 0 1";
+
+    // fool's mate, white to move and checkmated
+    static final String CHECKMATE_FEN = "rnb1kbnr/pppp1ppp/8/4p3/6Pq/5P2/PPPPP2P/RNBQKBNR w - - 0 1";
+
+    private Fixtures() {
+    }
+
+    /**
+     * @return the starting position
+     */
+    static ChessGame start() {
+        return new ChessGame();
+    }
+
+    /**
+     * @return an open middlegame (Italian game after a few developing moves) with white to move
+     */
+    static ChessGame middlegame() {
+        return ChessGame.fromFen(MIDDLEGAME_FEN);
+    }
+
+    /**
+     * @return fool's mate, with white checkmated
+     */
+    static ChessGame checkmate() {
+        return ChessGame.fromFen(CHECKMATE_FEN);
+    }
+}
@@ -0,0 +1,73 @@
+package benchmarks;
+
+import chess.ChessGame;
+import dataaccess.MemoryGameDAO;
+import model.GameData;
+import model.ListGameData;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MemoryGameDAO operations, the baseline for any game storage layer
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameDAOBenchmark {
+
+    @Param({"100", "10000"})
+    public int games;
+
+    private MemoryGameDAO dao;
+    private ChessGame game;
+    private int nextID;
+
+    @Setup
+    public void setUp() {
+        dao = new MemoryGameDAO();
+        game = Fixtures.middlegame();
+        for (int id = 1; id <= games; id++) {
+            dao.addGame(new GameData(id, "white" + id, "black" + id, "game" + id, game, false));
+        }
+        nextID = games / 2;
+    }
+
+    private int nextGameID() {
+        nextID = nextID % games + 1;
+        return nextID;
+    }
+
+    @Benchmark
+    public GameData getGame() {
+        return dao.getGame(nextGameID());
+    }
+
+    @Benchmark
+    public void updateGame() {
+        dao.updateGame(nextGameID(), game);
+    }
+
+    @Benchmark
+    public void updateGameWhitePlayer() {
+        dao.updateGameWhitePlayer(nextGameID(), "newWhite");
+    }
+
+    @Benchmark
+    public void listGames(Blackhole bh) {
+        for (GameData data : dao.listGames()) {
+            bh.consume(data.gameID());
+        }
+    }
+
+    @Benchmark
+    public void listGameSummariesPage(Blackhole bh) {
+        for (ListGameData data : dao.listGameSummaries(games / 2, 50)) {
+            bh.consume(data.gameID());
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package benchmarks;
+
+import chess.ChessGame;
+import chess.ChessGameCodec;
+import com.google.gson.Gson;
+import model.GameData;
+import org.openjdk.jmh.annotations.*;
+import serialization.Serializer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Round trips of the objects the server persists and broadcasts, as JSON through the shared Serializer,
+ * FEN and the binary codec, with plain reflective Gson for comparison
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    // what every call site used before the shared Serializer: reflective Gson with no chess adapters
+    private final Gson reflectiveGson = new Gson();
+
+    private ChessGame game;
+    private String gameJson;
+    private String reflectiveGameJson;
+    private String gameFen;
+    private byte[] gameBytes;
+    private GameData gameData;
+    private String gameDataJson;
+
+    @Setup
+    public void setUp() {
+        game = Fixtures.middlegame();
+        gameJson = Serializer.toJson(game);
+        reflectiveGameJson = reflectiveGson.toJson(game);
+        gameFen = game.toFen();
+        gameBytes = ChessGameCodec.encode(game);
+        gameData = new GameData(42, "white", "black", "benchmark", game, false);
+        gameDataJson = Serializer.toJson(gameData);
+    }
+
+    @Benchmark
+    public String gameToJson() {
+        return Serializer.toJson(game);
+    }
+
+    @Benchmark
+    public ChessGame gameFromJson() {
+        return Serializer.fromJson(gameJson, ChessGame.class);
+    }
+
+    @Benchmark
+    public String gameToReflectiveJson() {
+        return reflectiveGson.toJson(game);
+    }
+
+    @Benchmark
+    public ChessGame gameFromReflectiveJson() {
+        return reflectiveGson.fromJson(reflectiveGameJson, ChessGame.class);
+    }
+
+    /**
+     * A fresh reflective Gson per call, as the handlers and messages used to do
+     */
+    @Benchmark
+    public String gameToJsonNewGson() {
+        return new Gson().toJson(game);
+    }
+
+    @Benchmark
+    public String gameToFen() {
+        return game.toFen();
+    }
+
+    @Benchmark
+    public ChessGame gameFromFen() {
+        return ChessGame.fromFen(gameFen);
+    }
+
+    @Benchmark
+    public byte[] gameToBinary() {
+        return ChessGameCodec.encode(game);
+    }
+
+    @Benchmark
+    public ChessGame gameFromBinary() {
+        return ChessGameCodec.decode(gameBytes);
+    }
+
+    @Benchmark
+    public String gameDataToJson() {
+        return Serializer.toJson(gameData);
+    }
+
+    @Benchmark
+    public GameData gameDataFromJson() {
+        return Serializer.fromJson(gameDataJson, GameData.class);
+    }
+
+    /**
+     * GameData.toString, which now goes through the shared Serializer
+     */
+    @Benchmark
+    public String gameDataToString() {
+        return gameData.toString();
+    }
+}
@@ -2,7 +2,7 @@ package client;
 
 import chess.*;
 import client.websocket.ServerMessageObserver;
-import com.google.gson.Gson;
+import serialization.Serializer;
 import websocket.messages.ErrorMessage;
 import websocket.messages.LoadGameMessage;
 import websocket.messages.NotificationMessage;
@@ -70,7 +70,7 @@ public class GameplayClient implements ServerMessageObserver {
 
     @Override
     public void notify(String message) {
-        ServerMessage msg = new Gson().fromJson(message, ServerMessage.class);
+        ServerMessage msg = Serializer.fromJson(message, ServerMessage.class);
         switch (msg.getServerMessageType()) {
             case NOTIFICATION -> displayNotification(message);
             case ERROR -> displayError(message);
@@ -79,17 +79,17 @@ public class GameplayClient implements ServerMessageObserver {
     }
 
     public void displayNotification(String message) {
-        NotificationMessage msg = new Gson().fromJson(message, NotificationMessage.class);
+        NotificationMessage msg = Serializer.fromJson(message, NotificationMessage.class);
         System.out.println(SET_TEXT_BOLD + SET_BG_COLOR_MAGENTA + msg.getMessage());
     }
 
     public void displayError(String message) {
-        ErrorMessage msg = new Gson().fromJson(message, ErrorMessage.class);
+        ErrorMessage msg = Serializer.fromJson(message, ErrorMessage.class);
         System.out.println(SET_TEXT_BOLD + SET_BG_COLOR_MAGENTA + msg.getErrorMessage());
     }
 
     public void loadGame(String message) {
-        LoadGameMessage msg = new Gson().fromJson(message, LoadGameMessage.class);
+        LoadGameMessage msg = Serializer.fromJson(message, LoadGameMessage.class);
         ChessGame game = msg.getGame();
         ChessBoard board = game.getBoard();
         System.out.println(makeWhiteBoard(board));
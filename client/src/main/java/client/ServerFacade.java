@@ -5,7 +5,7 @@ import client.websocket.WebsocketCommunicator;
 import facade.ResponseException;
 import model.*;
 
-import com.google.gson.Gson;
+import serialization.Serializer;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -14,10 +14,14 @@ import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.URI;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 public class ServerFacade {
 
+    private static final int LIST_PAGE_SIZE = 100;
+
     private final int port;
     private final WebsocketCommunicator communicator;
 
@@ -62,8 +66,19 @@ public class ServerFacade {
     }
 
     public ListGameResult listGames(String authToken) throws ResponseException {
-        HttpURLConnection http = makeRequest("GET", "/game", authToken, null);
-        return getResponse(http, ListGameResult.class);
+        // the server sends the games a page at a time, so keep asking for the next page until one comes back short
+        List<ListGameData> games = new ArrayList<>();
+        int after = 0;
+        while (true) {
+            String path = "/game?after=" + after + "&limit=" + LIST_PAGE_SIZE;
+            HttpURLConnection http = makeRequest("GET", path, authToken, null);
+            ListGameData[] page = getResponse(http, ListGameResult.class).games();
+            games.addAll(List.of(page));
+            if (page.length < LIST_PAGE_SIZE) {
+                return new ListGameResult(games.toArray(new ListGameData[0]));
+            }
+            after = page[page.length - 1].gameID();
+        }
     }
 
     public Object joinGame(String authToken, JoinRequest jReq) throws ResponseException {
@@ -97,7 +112,7 @@ public class ServerFacade {
             http.setDoOutput(true);
             http.addRequestProperty("Content-Type", "application/json");
             try (OutputStream reqBody = http.getOutputStream()) {
-                String jsonBody = new Gson().toJson(request);
+                String jsonBody = Serializer.toJson(request);
                 reqBody.write(jsonBody.getBytes());
             }
         }
@@ -116,7 +131,7 @@ public class ServerFacade {
         T responseBody;
         try (InputStream respBody = http.getInputStream()) {
             InputStreamReader inputStreamReader = new InputStreamReader(respBody);
-            responseBody = new Gson().fromJson(inputStreamReader, responseClass);
+            responseBody = Serializer.fromJson(inputStreamReader, responseClass);
         }
         return responseBody;
     }
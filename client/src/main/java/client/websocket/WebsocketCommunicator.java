@@ -1,7 +1,7 @@
 package client.websocket;
 
-import com.google.gson.Gson;
 import facade.ResponseException;
+import serialization.Serializer;
 import websocket.commands.UserGameCommand;
 
 import javax.websocket.*;
@@ -37,7 +37,7 @@ public class WebsocketCommunicator extends Endpoint {
     public void connect(String authToken, int gameID) {
         try {
             UserGameCommand cmd = new UserGameCommand(UserGameCommand.CommandType.CONNECT, authToken, gameID);
-            this.session.getBasicRemote().sendText(new Gson().toJson(cmd));
+            this.session.getBasicRemote().sendText(Serializer.toJson(cmd));
         } catch (IOException e) {
             throw new RuntimeException(e.getMessage());
         }
@@ -0,0 +1,161 @@
+package dataaccess;
+
+import model.AuthData;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * AuthDAO that keeps recently used auth tokens in memory in front of another AuthDAO (normally MySqlAuthDAO),
+ * so checking the token on every HTTP request and WebSocket message doesn't need a database round trip.
+ * <p>
+ * Tokens are written through to the wrapped DAO on addAuth and dropped from the cache on deleteAuth and
+ * deleteAllAuths. Entries expire after a fixed time to live, and once the cache is full the least recently
+ * used token is dropped. Tokens that weren't found aren't cached.
+ */
+public class CachingAuthDAO implements AuthDAO {
+
+    public static final int DEFAULT_MAX_SIZE = 10_000;
+    public static final Duration DEFAULT_TTL = Duration.ofMinutes(5);
+
+    private record Entry(AuthData auth, long expiresAt) {
+    }
+
+    private final AuthDAO authDB;
+    private final long ttlNanos;
+    private final LongSupplier clock;
+
+    // access ordered so the eldest entry is the least recently used
+    private final LinkedHashMap<String, Entry> tokens;
+    private final ReentrantLock lock = new ReentrantLock();
+    // bumped on every invalidation, so a lookup that raced with a delete doesn't put the deleted token back
+    private long generation;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public CachingAuthDAO(AuthDAO authDB) {
+        this(authDB, DEFAULT_MAX_SIZE, DEFAULT_TTL);
+    }
+
+    public CachingAuthDAO(AuthDAO authDB, int maxSize, Duration ttl) {
+        this(authDB, maxSize, ttl, System::nanoTime);
+    }
+
+    CachingAuthDAO(AuthDAO authDB, int maxSize, Duration ttl, LongSupplier clock) {
+        this.authDB = authDB;
+        this.ttlNanos = ttl.toNanos();
+        this.clock = clock;
+        this.tokens = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    public AuthData getAuth(String authToken) throws DataAccessException {
+        long startGeneration;
+        lock.lock();
+        try {
+            Entry entry = tokens.get(authToken);
+            if (entry != null) {
+                if (entry.expiresAt - clock.getAsLong() > 0) {
+                    hits.increment();
+                    return entry.auth;
+                }
+                tokens.remove(authToken);
+            }
+            startGeneration = generation;
+        } finally {
+            lock.unlock();
+        }
+
+        // look it up outside the lock so other tokens aren't held up by the database
+        misses.increment();
+        AuthData auth = authDB.getAuth(authToken);
+        if (auth != null) {
+            lock.lock();
+            try {
+                if (generation == startGeneration) {
+                    tokens.put(authToken, new Entry(auth, clock.getAsLong() + ttlNanos));
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return auth;
+    }
+
+    public AuthData addAuth(AuthData auth) throws DataAccessException {
+        AuthData added = authDB.addAuth(auth);
+        lock.lock();
+        try {
+            tokens.put(auth.authToken(), new Entry(auth, clock.getAsLong() + ttlNanos));
+        } finally {
+            lock.unlock();
+        }
+        return added;
+    }
+
+    public void deleteAuth(String authToken) throws DataAccessException {
+        authDB.deleteAuth(authToken);
+        lock.lock();
+        try {
+            tokens.remove(authToken);
+            generation++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Collection<AuthData> listAuths() throws DataAccessException {
+        return authDB.listAuths();
+    }
+
+    public void deleteAllAuths() throws DataAccessException {
+        authDB.deleteAllAuths();
+        lock.lock();
+        try {
+            tokens.clear();
+            generation++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    //-------------------------------------------------------------------------------------------------------------
+    // Custom Methods
+    //-------------------------------------------------------------------------------------------------------------
+
+    /**
+     * @return number of getAuth calls answered from the cache
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return number of getAuth calls that had to go to the wrapped DAO
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return number of tokens cached right now (including any that have expired but not been looked up since)
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return tokens.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,439 @@
+package dataaccess;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded pool of database connections.
+ * <p>
+ * borrow() hands out a connection whose close() puts it back in the pool instead of closing it,
+ * so DAOs keep using try-with-resources exactly as before. Connections that have sat idle are
+ * checked with isValid before they're handed out, idle connections past the idle timeout are
+ * closed (down to the minimum size) by a background task, and borrowers wait up to the borrow
+ * timeout when every connection is in use.
+ */
+class ConnectionPool {
+
+    /**
+     * Opens a new physical connection for the pool
+     */
+    @FunctionalInterface
+    interface ConnectionFactory {
+        Connection open() throws SQLException;
+    }
+
+    /**
+     * Pool sizing and timing
+     *
+     * @param minSize connections kept open even when idle
+     * @param maxSize most connections open at once
+     * @param idleTimeout how long a connection above minSize can sit idle before it's closed
+     * @param borrowTimeout how long borrow waits for a connection when the pool is exhausted
+     * @param validationInterval connections idle longer than this are validated before being handed out
+     * @param validationTimeoutSeconds how long isValid may take
+     * @param statementCacheSize prepared statements cached per connection (0 turns the cache off)
+     */
+    record Settings(int minSize, int maxSize, Duration idleTimeout, Duration borrowTimeout,
+                    Duration validationInterval, int validationTimeoutSeconds, int statementCacheSize) {
+
+        Settings {
+            if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+                throw new IllegalArgumentException("Invalid pool size: min " + minSize + ", max " + maxSize);
+            }
+        }
+
+        /**
+         * Reads the pool settings from db.properties, using defaults for anything left out
+         *
+         * @param props loaded db.properties
+         * @return pool settings
+         */
+        static Settings fromProperties(Properties props) {
+            return new Settings(
+                    Integer.parseInt(props.getProperty("db.pool.minSize", "1")),
+                    Integer.parseInt(props.getProperty("db.pool.maxSize", "10")),
+                    Duration.ofSeconds(Long.parseLong(props.getProperty("db.pool.idleTimeoutSeconds", "300"))),
+                    Duration.ofMillis(Long.parseLong(props.getProperty("db.pool.borrowTimeoutMillis", "5000"))),
+                    Duration.ofMillis(Long.parseLong(props.getProperty("db.pool.validationIntervalMillis", "1000"))),
+                    Integer.parseInt(props.getProperty("db.pool.validationTimeoutSeconds", "2")),
+                    Integer.parseInt(props.getProperty("db.pool.statementCacheSize", "32")));
+        }
+    }
+
+    private final ConnectionFactory factory;
+    private final Settings settings;
+
+    // idle connections, most recently returned last so the busiest ones stay warm
+    private final ArrayDeque<PooledConnection> idle = new ArrayDeque<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition returned = lock.newCondition();
+    // connections open right now, idle or borrowed (including ones still being opened)
+    private int total;
+    private boolean closed;
+
+    private final ScheduledExecutorService maintenance;
+    private final StatementCache.Stats statementStats = new StatementCache.Stats();
+
+    ConnectionPool(ConnectionFactory factory, Settings settings) {
+        this.factory = factory;
+        this.settings = settings;
+
+        // evict idle connections and top the pool back up to its minimum in the background
+        maintenance = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "db-pool-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(settings.idleTimeout().toMillis() / 2, 1000);
+        maintenance.scheduleWithFixedDelay(this::maintain, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Gets a connection from the pool, opening a new one if none are idle and the pool isn't full.
+     * Closing the returned connection gives it back to the pool.
+     *
+     * @return a pooled connection
+     * @throws SQLException if a connection can't be opened, or none frees up before the borrow timeout
+     */
+    Connection borrow() throws SQLException {
+        long deadline = System.nanoTime() + settings.borrowTimeout().toNanos();
+        while (true) {
+            PooledConnection pooled = null;
+            lock.lock();
+            try {
+                while (true) {
+                    if (closed) {
+                        throw new SQLException("Connection pool is closed");
+                    }
+                    pooled = idle.pollLast();
+                    if (pooled != null || total < settings.maxSize()) {
+                        break;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        throw new SQLException("Timed out waiting for a database connection (pool size "
+                                + settings.maxSize() + ")");
+                    }
+                    returned.awaitNanos(remaining);
+                }
+                if (pooled == null) {
+                    // reserve the slot now and open the connection outside the lock
+                    total++;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted waiting for a database connection", e);
+            } finally {
+                lock.unlock();
+            }
+
+            if (pooled == null) {
+                return open().lend();
+            }
+            if (isUsable(pooled)) {
+                return pooled.lend();
+            }
+            // the connection went bad while it sat idle, so drop it and try again
+            discard(pooled);
+        }
+    }
+
+    /**
+     * Closes every idle connection and stops handing out new ones.
+     * Borrowed connections are closed as they're returned.
+     */
+    void close() {
+        List<PooledConnection> toClose;
+        lock.lock();
+        try {
+            closed = true;
+            toClose = new ArrayList<>(idle);
+            idle.clear();
+            total -= toClose.size();
+            returned.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        maintenance.shutdownNow();
+        toClose.forEach(PooledConnection::closePhysical);
+    }
+
+    /**
+     * @return number of open connections, idle or borrowed
+     */
+    int size() {
+        lock.lock();
+        try {
+            return total;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return prepared statements served from a connection's cache, across every connection in the pool
+     */
+    long getStatementCacheHits() {
+        return statementStats.hits();
+    }
+
+    /**
+     * @return prepared statements that had to be prepared by the driver, across every connection in the pool
+     */
+    long getStatementCacheMisses() {
+        return statementStats.misses();
+    }
+
+    /**
+     * @return cached statements closed to make room for others, across every connection in the pool
+     */
+    long getStatementCacheEvictions() {
+        return statementStats.evictions();
+    }
+
+    /**
+     * @return number of open connections sitting idle in the pool
+     */
+    int idleCount() {
+        lock.lock();
+        try {
+            return idle.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    //-------------------------------------------------------------------------------------------------------------
+    // Helper Functions
+    //-------------------------------------------------------------------------------------------------------------
+
+    /**
+     * opens a new physical connection for a slot that's already been reserved in total
+     */
+    private PooledConnection open() throws SQLException {
+        try {
+            return new PooledConnection(factory.open());
+        } catch (SQLException | RuntimeException e) {
+            release();
+            throw e;
+        }
+    }
+
+    /**
+     * checks a connection taken from the idle list before handing it out. Connections used very recently
+     * are trusted without a round trip to the database
+     */
+    private boolean isUsable(PooledConnection pooled) {
+        try {
+            if (pooled.physical.isClosed()) {
+                return false;
+            }
+            long idleNanos = System.nanoTime() - pooled.lastReturned;
+            return idleNanos < settings.validationInterval().toNanos()
+                    || pooled.physical.isValid(settings.validationTimeoutSeconds());
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * takes a connection back from a borrower, resetting anything the borrower changed
+     */
+    private void giveBack(PooledConnection pooled) {
+        boolean healthy;
+        try {
+            Connection conn = pooled.physical;
+            healthy = !conn.isClosed();
+            if (healthy && !conn.getAutoCommit()) {
+                conn.rollback();
+                conn.setAutoCommit(true);
+            }
+            if (healthy) {
+                conn.clearWarnings();
+            }
+        } catch (SQLException e) {
+            healthy = false;
+        }
+
+        if (!healthy) {
+            discard(pooled);
+            return;
+        }
+
+        pooled.lastReturned = System.nanoTime();
+        lock.lock();
+        try {
+            if (!closed) {
+                idle.addLast(pooled);
+                returned.signal();
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        discard(pooled);
+    }
+
+    /**
+     * closes a connection and frees up its slot
+     */
+    private void discard(PooledConnection pooled) {
+        pooled.closePhysical();
+        release();
+    }
+
+    /**
+     * frees up a slot so a waiting borrower can open a new connection
+     */
+    private void release() {
+        lock.lock();
+        try {
+            total--;
+            returned.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * closes connections that have been idle too long, keeping at least minSize open,
+     * then opens connections until there are minSize again. Runs on the maintenance thread
+     */
+    void maintain() {
+        List<PooledConnection> expired = new ArrayList<>();
+        int missing;
+        lock.lock();
+        try {
+            long cutoff = System.nanoTime() - settings.idleTimeout().toNanos();
+            // oldest returned connections are at the front of the idle list
+            Iterator<PooledConnection> it = idle.iterator();
+            while (it.hasNext() && total - expired.size() > settings.minSize()) {
+                PooledConnection pooled = it.next();
+                if (pooled.lastReturned - cutoff >= 0) {
+                    break;
+                }
+                it.remove();
+                expired.add(pooled);
+            }
+            total -= expired.size();
+            missing = closed ? 0 : settings.minSize() - total;
+            total += Math.max(missing, 0);
+        } finally {
+            lock.unlock();
+        }
+        expired.forEach(PooledConnection::closePhysical);
+
+        for (int i = 0; i < missing; i++) {
+            try {
+                giveBack(open());
+            } catch (SQLException | RuntimeException e) {
+                // the database may not be up yet; release the rest of the reserved slots and try next time
+                for (int j = i + 1; j < missing; j++) {
+                    release();
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * A physical connection owned by the pool
+     */
+    private class PooledConnection {
+        private final Connection physical;
+        private final StatementCache statements = new StatementCache(settings.statementCacheSize(), statementStats);
+        private long lastReturned = System.nanoTime();
+
+        PooledConnection(Connection physical) {
+            this.physical = physical;
+        }
+
+        /**
+         * wraps the connection for one borrower. Each borrow gets its own handle, so a handle that's
+         * already been closed can't touch the connection once someone else has it
+         */
+        Connection lend() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, new LentConnection(this));
+        }
+
+        void closePhysical() {
+            statements.closeAll();
+            try {
+                physical.close();
+            } catch (SQLException e) {
+                // nothing more to do with a connection that won't close
+            }
+        }
+    }
+
+    /**
+     * Proxy for a borrowed connection: close() returns it to the pool, prepareStatement goes through the
+     * connection's statement cache and every other call goes to the physical connection until then
+     */
+    private class LentConnection implements InvocationHandler {
+        private PooledConnection pooled;
+
+        LentConnection(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    if (pooled != null) {
+                        PooledConnection toReturn = pooled;
+                        pooled = null;
+                        giveBack(toReturn);
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    return pooled == null || pooled.physical.isClosed();
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "Pooled" + (pooled == null ? "[returned]" : "[" + pooled.physical + "]");
+                }
+                default -> {
+                    if (pooled == null) {
+                        throw new SQLException("Connection has been returned to the pool");
+                    }
+                    // prepareStatement(sql) and prepareStatement(sql, autoGeneratedKeys) are the ones the DAOs use
+                    if (method.getName().equals("prepareStatement")
+                            && (args.length == 1 || (args.length == 2 && args[1] instanceof Integer))) {
+                        int keys = args.length == 2 ? (Integer) args[1] : Statement.NO_GENERATED_KEYS;
+                        return pooled.statements.prepare(pooled.physical, (Connection) proxy, (String) args[0], keys);
+                    }
+                    try {
+                        return method.invoke(pooled.physical, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                }
+            }
+        }
+    }
+}
@@ -8,6 +8,7 @@ public class DatabaseManager {
     private static final String USER;
     private static final String PASSWORD;
     private static final String CONNECTION_URL;
+    private static final ConnectionPool POOL;
 
     /*
      * Load the database information for the db.properties file.
@@ -27,6 +28,13 @@ public class DatabaseManager {
                 var host = props.getProperty("db.host");
                 var port = Integer.parseInt(props.getProperty("db.port"));
                 CONNECTION_URL = String.format("jdbc:mysql://%s:%d", host, port);
+
+                // pooled connections are opened with the catalog already set, so borrowing one is all a DAO pays for
+                POOL = new ConnectionPool(() -> {
+                    var conn = DriverManager.getConnection(CONNECTION_URL, USER, PASSWORD);
+                    conn.setCatalog(DATABASE_NAME);
+                    return conn;
+                }, ConnectionPool.Settings.fromProperties(props));
             }
         } catch (Exception ex) {
             throw new RuntimeException("unable to process db.properties. " + ex.getMessage());
@@ -39,8 +47,8 @@ public class DatabaseManager {
     static void createDatabase() throws DataAccessException {
         try {
             var statement = "CREATE DATABASE IF NOT EXISTS " + DATABASE_NAME;
-            var conn = DriverManager.getConnection(CONNECTION_URL, USER, PASSWORD);
-            try (var preparedStatement = conn.prepareStatement(statement)) {
+            try (var conn = DriverManager.getConnection(CONNECTION_URL, USER, PASSWORD);
+                 var preparedStatement = conn.prepareStatement(statement)) {
                 preparedStatement.executeUpdate();
             }
         } catch (SQLException e) {
@@ -49,10 +57,34 @@ public class DatabaseManager {
     }
 
     /**
-     * Create a connection to the database and sets the catalog based upon the
-     * properties specified in db.properties. Connections to the database should
-     * be short-lived, and you must close the connection when you are done with it.
-     * The easiest way to do that is with a try-with-resource block.
+     * Gets how many prepared statements came from a pooled connection's statement cache. Together with the
+     * misses and evictions this is for tuning db.pool.statementCacheSize: evictions that keep climbing mean
+     * the cache is too small for the SQL being run.
+     */
+    public static long getStatementCacheHits() {
+        return POOL.getStatementCacheHits();
+    }
+
+    /**
+     * Gets how many prepared statements the driver had to prepare because they weren't cached
+     */
+    public static long getStatementCacheMisses() {
+        return POOL.getStatementCacheMisses();
+    }
+
+    /**
+     * Gets how many cached statements were closed to make room for others
+     */
+    public static long getStatementCacheEvictions() {
+        return POOL.getStatementCacheEvictions();
+    }
+
+    /**
+     * Borrows a connection to the database from the connection pool, with the catalog
+     * set based upon the properties specified in db.properties. Connections to the
+     * database should be short-lived, and you must close the connection when you are
+     * done with it, which returns it to the pool. The easiest way to do that is with a
+     * try-with-resource block.
      * <br/>
      * <code>
      * try (var conn = DbInfo.getConnection(databaseName)) {
@@ -62,9 +94,7 @@ public class DatabaseManager {
      */
     static Connection getConnection() throws DataAccessException {
         try {
-            var conn = DriverManager.getConnection(CONNECTION_URL, USER, PASSWORD);
-            conn.setCatalog(DATABASE_NAME);
-            return conn;
+            return POOL.borrow();
         } catch (SQLException e) {
             throw new DataAccessException(e.getMessage());
         }
@@ -2,8 +2,11 @@ package dataaccess;
 
 import chess.ChessGame;
 import model.GameData;
+import model.ListGameData;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 public interface GameDAO {
     Integer addGame(GameData game) throws DataAccessException;
@@ -14,12 +17,34 @@ public interface GameDAO {
 
     void updateGame(int gameID, ChessGame game) throws DataAccessException;
 
+    /**
+     * Saves the state of several games at once. DAOs that can batch the writes should override this.
+     *
+     * @param games game state to save, keyed by gameID
+     * @throws DataAccessException if any of the games can't be saved
+     */
+    default void updateGames(Map<Integer, ChessGame> games) throws DataAccessException {
+        for (Map.Entry<Integer, ChessGame> game : games.entrySet()) {
+            updateGame(game.getKey(), game.getValue());
+        }
+    }
+
     void updateGameOver(int gameID) throws DataAccessException;
 
     GameData getGame(int gameID) throws DataAccessException;
 
     Collection<GameData> listGames() throws DataAccessException;
 
+    /**
+     * Lists games without their boards, one page at a time in gameID order
+     *
+     * @param afterGameID only games with a higher gameID are listed (0 to start from the beginning)
+     * @param limit most games to list, or 0 or less for no limit
+     * @return the page of games
+     * @throws DataAccessException if the games can't be read
+     */
+    List<ListGameData> listGameSummaries(int afterGameID, int limit) throws DataAccessException;
+
     void deleteAllGames() throws DataAccessException;
 
 }
@@ -2,14 +2,17 @@ package dataaccess;
 
 import chess.ChessGame;
 import model.GameData;
+import model.ListGameData;
 
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.List;
+import java.util.TreeMap;
 
 public class MemoryGameDAO implements GameDAO {
 
-    // key in this case is gameID (int)
-    final private HashMap<Integer, GameData> games = new HashMap<>();
+    // key in this case is gameID (int), sorted so games can be listed a page at a time
+    final private TreeMap<Integer, GameData> games = new TreeMap<>();
 
     public Integer addGame(GameData game) {
         games.put(game.gameID(), game);
@@ -42,6 +45,17 @@ public class MemoryGameDAO implements GameDAO {
         return games.values();
     }
 
+    public List<ListGameData> listGameSummaries(int afterGameID, int limit) {
+        List<ListGameData> page = new ArrayList<>();
+        for (GameData game : games.tailMap(afterGameID, false).values()) {
+            if (limit > 0 && page.size() == limit) {
+                break;
+            }
+            page.add(new ListGameData(game.gameID(), game.whiteUsername(), game.blackUsername(), game.gameName()));
+        }
+        return page;
+    }
+
     public void deleteAllGames() {
         games.clear();
     }
@@ -1,7 +1,7 @@
 package dataaccess;
 
-import com.google.gson.Gson;
 import model.AuthData;
+import serialization.Serializer;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -90,6 +90,6 @@ public class MySqlAuthDAO implements AuthDAO {
 
     private AuthData readAuth(ResultSet rs) throws SQLException {
         String json = rs.getString("authData");
-        return new Gson().fromJson(json, AuthData.class);
+        return Serializer.fromJson(json, AuthData.class);
     }
 }
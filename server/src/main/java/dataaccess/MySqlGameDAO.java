@@ -1,20 +1,51 @@
 package dataaccess;
 
 import chess.ChessGame;
-import com.google.gson.Gson;
+import chess.ChessGameCodec;
+import chess.ChessMove;
+import chess.InvalidMoveException;
 import model.GameData;
+import model.ListGameData;
+import serialization.Serializer;
 
 import java.util.Collection;
 
+import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import static dataaccess.MySqlDAOutil.*;
 
+/**
+ * Stores each game as a snapshot in games plus an append-only log of its moves in game_moves.
+ * <p>
+ * A move only adds a (gameID, ply, move) row. The full board is written again every snapshotInterval plies
+ * and when the game ends, and getGame rebuilds a game from its snapshot by replaying the moves logged after it.
+ * The snapshot's ply count is part of the encoded game (ChessGameCodec). Writing a snapshot deletes the logged
+ * moves it includes, so the log only ever holds each game's moves since its latest snapshot.
+ */
 public class MySqlGameDAO implements GameDAO {
 
+    public static final int DEFAULT_SNAPSHOT_INTERVAL = 16;
+    private static final int[] NO_MOVES = new int[0];
+
+    private final int snapshotInterval;
+
     public MySqlGameDAO() throws DataAccessException {
+        this(DEFAULT_SNAPSHOT_INTERVAL);
+    }
+
+    /**
+     * @param snapshotInterval how many plies can be logged after a snapshot before the board is written again
+     */
+    public MySqlGameDAO(int snapshotInterval) throws DataAccessException {
+        this.snapshotInterval = Math.max(1, snapshotInterval);
         String[] createStatements = {
                 """
             CREATE TABLE IF NOT EXISTS  games (
@@ -27,6 +58,14 @@ public class MySqlGameDAO implements GameDAO {
               PRIMARY KEY (`gameID`),
               INDEX(gameID)
             ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci
+            """,
+                """
+            CREATE TABLE IF NOT EXISTS  game_moves (
+              `gameID` int NOT NULL,
+              `ply` int NOT NULL,
+              `move` SMALLINT NOT NULL,
+              PRIMARY KEY (`gameID`, `ply`)
+            ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci
             """
         };
         configureDatabase(createStatements);
@@ -34,7 +73,7 @@ public class MySqlGameDAO implements GameDAO {
 
     public Integer addGame(GameData game) throws DataAccessException {
         String statement = "INSERT INTO games (gameName, game) VALUES (?, ?)";
-        return executeUpdate(statement, game.gameName(), new Gson().toJson(new ChessGame()));
+        return executeUpdate(statement, game.gameName(), ChessGameCodec.encodeToString(new ChessGame()));
     }
 
     public void updateGameWhitePlayer(int gameID, String username) throws DataAccessException {
@@ -64,13 +103,20 @@ public class MySqlGameDAO implements GameDAO {
     }
 
     public void updateGame(int gameID, ChessGame updatedGame) throws DataAccessException {
+        updateGames(Map.of(gameID, updatedGame));
+    }
+
+    public void updateGames(Map<Integer, ChessGame> games) throws DataAccessException {
+        if (games.isEmpty()) {
+            return;
+        }
         try (var conn = DatabaseManager.getConnection()) {
-            String statement = "UPDATE games SET game=? WHERE gameID=?";
-            try (var ps = conn.prepareStatement(statement)) {
-                ps.setString(1, new Gson().toJson(updatedGame));
-                ps.setInt(2, gameID);
-                ps.executeUpdate();
+            // every game in one transaction, so a batch of games is saved with a single commit
+            conn.setAutoCommit(false);
+            for (Map.Entry<Integer, ChessGame> game : games.entrySet()) {
+                saveGame(conn, game.getKey(), game.getValue());
             }
+            conn.commit();
         } catch (Exception e) {
             throw new DataAccessException("Unable to update game: " + e.getMessage());
         }
@@ -78,12 +124,25 @@ public class MySqlGameDAO implements GameDAO {
 
     public void updateGameOver(int gameID) throws DataAccessException {
         try (var conn = DatabaseManager.getConnection()) {
-            String statement = "UPDATE games SET game=? WHERE gameID=?";
-            try (var ps = conn.prepareStatement(statement)) {
-                ps.setString(1, "true");
-                ps.setInt(2, gameID);
-                ps.executeUpdate();
+            conn.setAutoCommit(false);
+            // a finished game gets a full snapshot, so its moves never need replaying again
+            GameData gameData = readGame(conn, gameID);
+            if (gameData != null && gameData.game() != null) {
+                String statement = "UPDATE games SET game=?, gameOver=TRUE WHERE gameID=?";
+                try (var ps = conn.prepareStatement(statement)) {
+                    ps.setString(1, ChessGameCodec.encodeToString(gameData.game()));
+                    ps.setInt(2, gameID);
+                    ps.executeUpdate();
+                }
+                deleteMovesUpTo(conn, gameID, gameData.game().getPly());
+            } else {
+                String statement = "UPDATE games SET gameOver=TRUE WHERE gameID=?";
+                try (var ps = conn.prepareStatement(statement)) {
+                    ps.setInt(1, gameID);
+                    ps.executeUpdate();
+                }
             }
+            conn.commit();
         } catch (Exception e) {
             throw new DataAccessException("Unable to update game: " + e.getMessage());
         }
@@ -91,54 +150,288 @@ public class MySqlGameDAO implements GameDAO {
 
     public GameData getGame(int gameID) throws DataAccessException {
         try (var conn = DatabaseManager.getConnection()) {
-            String statement = "SELECT whiteUsername, blackUsername, gameName, game, gameOver FROM games WHERE gameID=?";
-            try (var ps = conn.prepareStatement(statement)) {
-                ps.setInt(1, gameID);
-                try (var rs = ps.executeQuery()) {
-                    if (rs.next()) {
-                        return makeGameData(gameID, rs);
-                    }
-                }
-            }
+            return readGame(conn, gameID);
         } catch (SQLException e) {
             throw new DataAccessException("Unable to read data: " + e.getMessage());
         }
-        return null;
     }
 
     public Collection<GameData> listGames() throws DataAccessException {
-        Collection<GameData> games = new ArrayList<>();
+        List<StoredGame> rows = new ArrayList<>();
         try (var conn = DatabaseManager.getConnection()) {
+            // one transaction, so the logged moves read below follow on from the snapshots read here
+            conn.setAutoCommit(false);
             String statement = "SELECT gameID, whiteUsername, blackUsername, gameName, game, gameOver FROM games";
             try (var ps = conn.prepareStatement(statement)) {
                 try (ResultSet rs = ps.executeQuery()) {
                     while (rs.next()) {
-                        games.add(makeGameData(Integer.parseInt(rs.getString("gameID")), rs));
+                        rows.add(StoredGame.read(rs.getInt("gameID"), rs));
                     }
                 }
             }
+
+            // every game's moves come from one query rather than one query per game
+            Map<Integer, int[]> tails = loggedMovesAfter(conn, rows);
+            conn.commit();
+
+            Collection<GameData> games = new ArrayList<>(rows.size());
+            for (StoredGame row : rows) {
+                games.add(row.toGameData(tails.getOrDefault(row.gameID(), NO_MOVES)));
+            }
             return games;
         } catch (Exception e) {
             throw new DataAccessException("Unable to read data: " + e.getMessage());
         }
     }
 
+    public List<ListGameData> listGameSummaries(int afterGameID, int limit) throws DataAccessException {
+        List<ListGameData> games = new ArrayList<>();
+        try (var conn = DatabaseManager.getConnection()) {
+            // only the columns the lobby shows, read as a range of the primary key so no board is ever loaded
+            String statement = """
+                    SELECT gameID, whiteUsername, blackUsername, gameName FROM games
+                    WHERE gameID > ? ORDER BY gameID LIMIT ?""";
+            try (var ps = conn.prepareStatement(statement)) {
+                ps.setInt(1, afterGameID);
+                ps.setInt(2, limit > 0 ? limit : Integer.MAX_VALUE);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        games.add(new ListGameData(rs.getInt("gameID"), rs.getString("whiteUsername"),
+                                rs.getString("blackUsername"), rs.getString("gameName")));
+                    }
+                }
+            }
+            return games;
+        } catch (SQLException e) {
+            throw new DataAccessException("Unable to read data: " + e.getMessage());
+        }
+    }
+
     public void deleteAllGames() throws DataAccessException {
-        String statement = "TRUNCATE games";
-        executeUpdate(statement);
+        executeUpdate("TRUNCATE games");
+        executeUpdate("TRUNCATE game_moves");
     }
 
     //-------------------------------------------------------------------------------------------------------------
     // Helper Functions
     //-------------------------------------------------------------------------------------------------------------
 
-    private GameData makeGameData(int gameID, ResultSet rs) throws SQLException {
-        String white = rs.getString("whiteUsername");
-        String black = rs.getString("blackUsername");
-        String gameName = rs.getString("gameName");
-        String gameJson = rs.getString("game");
-        ChessGame game = new Gson().fromJson(gameJson, ChessGame.class);
-        boolean gameOver = rs.getBoolean("gameOver");
-        return new GameData(gameID, white, black, gameName, game, gameOver);
+    private GameData readGame(Connection conn, int gameID) throws SQLException {
+        String statement = "SELECT whiteUsername, blackUsername, gameName, game, gameOver FROM games WHERE gameID=?";
+        try (var ps = conn.prepareStatement(statement)) {
+            ps.setInt(1, gameID);
+            try (var rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    return makeGameData(conn, gameID, rs);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * reads the columns of a game and the moves logged after its snapshot, but leaves decoding the board and
+     * replaying the moves until something asks the GameData for its game
+     */
+    private GameData makeGameData(Connection conn, int gameID, ResultSet rs) throws SQLException {
+        StoredGame row = StoredGame.read(gameID, rs);
+        if (row.stored() == null) {
+            return row.toGameData(NO_MOVES);
+        }
+        return row.toGameData(loggedMovesAfter(conn, gameID, snapshotPly(row.stored())));
+    }
+
+    /**
+     * a row of games as read, before its logged moves are known
+     */
+    private record StoredGame(int gameID, String white, String black, String gameName, String stored,
+                              boolean gameOver) {
+
+        static StoredGame read(int gameID, ResultSet rs) throws SQLException {
+            return new StoredGame(gameID, rs.getString("whiteUsername"), rs.getString("blackUsername"),
+                    rs.getString("gameName"), rs.getString("game"), rs.getBoolean("gameOver"));
+        }
+
+        /**
+         * GameData whose board is decoded, and the moves after the snapshot replayed, only when it's asked for
+         */
+        GameData toGameData(int[] tail) {
+            if (stored == null) {
+                return new GameData(gameID, white, black, gameName, null, gameOver);
+            }
+            return GameData.lazy(gameID, white, black, gameName, () -> rebuildGame(gameID, stored, tail), gameOver);
+        }
+    }
+
+    /**
+     * reads the moves logged after every game's snapshot with one query. Snapshots delete the moves they
+     * cover, so the log is only ever the moves since each game's snapshot (older rows are skipped here, in
+     * case they were logged before that was so)
+     */
+    private Map<Integer, int[]> loggedMovesAfter(Connection conn, List<StoredGame> rows) throws SQLException {
+        Map<Integer, Integer> snapshotPlies = new HashMap<>();
+        for (StoredGame row : rows) {
+            if (row.stored() != null) {
+                snapshotPlies.put(row.gameID(), snapshotPly(row.stored()));
+            }
+        }
+        Map<Integer, int[]> tails = new HashMap<>();
+        if (snapshotPlies.isEmpty()) {
+            return tails;
+        }
+
+        try (var ps = conn.prepareStatement("SELECT gameID, ply, move FROM game_moves ORDER BY gameID, ply")) {
+            try (var rs = ps.executeQuery()) {
+                // rows come grouped by game, so collect each game's moves until the gameID changes
+                int gameID = 0;
+                int[] moves = new int[8];
+                int count = 0;
+                while (rs.next()) {
+                    int rowGameID = rs.getInt("gameID");
+                    if (count > 0 && rowGameID != gameID) {
+                        tails.put(gameID, Arrays.copyOf(moves, count));
+                        count = 0;
+                    }
+                    gameID = rowGameID;
+                    Integer snapshotPly = snapshotPlies.get(gameID);
+                    if (snapshotPly == null || rs.getInt("ply") <= snapshotPly) {
+                        continue;
+                    }
+                    if (count == moves.length) {
+                        moves = Arrays.copyOf(moves, count * 2);
+                    }
+                    moves[count++] = rs.getShort("move");
+                }
+                if (count > 0) {
+                    tails.put(gameID, Arrays.copyOf(moves, count));
+                }
+            }
+        }
+        return tails;
+    }
+
+    private int[] loggedMovesAfter(Connection conn, int gameID, int ply) throws SQLException {
+        String statement = "SELECT move FROM game_moves WHERE gameID=? AND ply>? ORDER BY ply";
+        try (var ps = conn.prepareStatement(statement)) {
+            ps.setInt(1, gameID);
+            ps.setInt(2, ply);
+            try (var rs = ps.executeQuery()) {
+                int[] moves = new int[8];
+                int count = 0;
+                while (rs.next()) {
+                    if (count == moves.length) {
+                        moves = Arrays.copyOf(moves, count * 2);
+                    }
+                    moves[count++] = rs.getShort("move");
+                }
+                return Arrays.copyOf(moves, count);
+            }
+        }
+    }
+
+    /**
+     * decodes a game's snapshot and brings it up to date by making the moves logged after it
+     */
+    private static ChessGame rebuildGame(int gameID, String stored, int[] tail) {
+        ChessGame game = decodeGame(stored);
+        try {
+            for (int move : tail) {
+                game.makeMove(ChessMove.decode(move));
+            }
+        } catch (InvalidMoveException e) {
+            throw new IllegalStateException("Logged move doesn't follow on from game " + gameID, e);
+        }
+        return game;
+    }
+
+    /**
+     * saves a game by logging the moves made since it was last saved, writing a new snapshot once enough
+     * plies have been logged. Games that can't be reached from the stored one by appending moves (set up
+     * by hand, or behind what's stored) replace it with a snapshot instead.
+     */
+    private void saveGame(Connection conn, int gameID, ChessGame game) throws SQLException {
+        String statement = """
+                SELECT game, (SELECT MAX(ply) FROM game_moves WHERE game_moves.gameID = games.gameID) AS lastPly
+                FROM games WHERE gameID=?""";
+        int snapshotPly;
+        int savedPly;
+        try (var ps = conn.prepareStatement(statement)) {
+            ps.setInt(1, gameID);
+            try (var rs = ps.executeQuery()) {
+                if (!rs.next()) {
+                    return;
+                }
+                String stored = rs.getString("game");
+                snapshotPly = stored == null ? 0 : snapshotPly(stored);
+                savedPly = Math.max(snapshotPly, rs.getInt("lastPly"));
+            }
+        }
+
+        int ply = game.getPly();
+        int[] moves = ply > savedPly ? game.getMovesSince(savedPly) : null;
+        if (moves == null) {
+            try (var ps = conn.prepareStatement("DELETE FROM game_moves WHERE gameID=? AND ply>?")) {
+                ps.setInt(1, gameID);
+                ps.setInt(2, ply);
+                ps.executeUpdate();
+            }
+            writeSnapshot(conn, gameID, game);
+            return;
+        }
+
+        try (var ps = conn.prepareStatement("INSERT INTO game_moves (gameID, ply, move) VALUES (?, ?, ?)")) {
+            for (int i = 0; i < moves.length; i++) {
+                ps.setInt(1, gameID);
+                ps.setInt(2, savedPly + i + 1);
+                ps.setShort(3, (short) moves[i]);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+        if (ply - snapshotPly >= snapshotInterval) {
+            writeSnapshot(conn, gameID, game);
+        }
+    }
+
+    private void writeSnapshot(Connection conn, int gameID, ChessGame game) throws SQLException {
+        try (var ps = conn.prepareStatement("UPDATE games SET game=? WHERE gameID=?")) {
+            ps.setString(1, ChessGameCodec.encodeToString(game));
+            ps.setInt(2, gameID);
+            ps.executeUpdate();
+        }
+        deleteMovesUpTo(conn, gameID, game.getPly());
+    }
+
+    /**
+     * drops logged moves a new snapshot already includes, so the log doesn't grow forever. Runs in the same
+     * transaction as the snapshot, so a reader never sees the moves gone without the snapshot that has them
+     */
+    private void deleteMovesUpTo(Connection conn, int gameID, int ply) throws SQLException {
+        try (var ps = conn.prepareStatement("DELETE FROM game_moves WHERE gameID=? AND ply<=?")) {
+            ps.setInt(1, gameID);
+            ps.setInt(2, ply);
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * ply count of a stored snapshot, read without decoding the board (legacy JSON rows count as ply 0)
+     */
+    private static int snapshotPly(String stored) {
+        if (stored.startsWith("{")) {
+            return 0;
+        }
+        return ChessGameCodec.decodePly(Base64.getDecoder().decode(stored));
+    }
+
+    private static ChessGame decodeGame(String stored) {
+        if (stored == null) {
+            return null;
+        }
+        // games are stored as Base64 of the compact binary codec, but rows written before it are Gson JSON
+        if (stored.startsWith("{")) {
+            return Serializer.fromJson(stored, ChessGame.class);
+        }
+        return ChessGameCodec.decodeFromString(stored);
     }
 }
@@ -1,7 +1,7 @@
 package dataaccess;
 
-import com.google.gson.Gson;
 import model.UserData;
+import serialization.Serializer;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -81,6 +81,6 @@ public class MySqlUserDAO implements UserDAO {
 
     private UserData readUser(ResultSet rs) throws SQLException {
         String json = rs.getString("userData");
-        return new Gson().fromJson(json, UserData.class);
+        return Serializer.fromJson(json, UserData.class);
     }
 }
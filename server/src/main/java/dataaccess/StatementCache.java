@@ -0,0 +1,234 @@
+package dataaccess;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Prepared statements for one pooled connection, keyed by SQL text, so hot statements are prepared
+ * once per connection instead of on every DAO call.
+ * <p>
+ * prepare() hands out a statement whose close() puts it back in the cache (with its parameters cleared)
+ * instead of closing it. The least recently used statements are closed once the cache is over its size.
+ * A statement that's still open when the same SQL is prepared again is left alone and the second caller
+ * gets an uncached statement. Only the borrower of the connection uses its cache, so it isn't locked.
+ */
+class StatementCache {
+
+    /**
+     * Hit, miss and eviction counts, shared by every connection's cache in a pool
+     */
+    static class Stats {
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder evictions = new LongAdder();
+
+        long hits() {
+            return hits.sum();
+        }
+
+        long misses() {
+            return misses.sum();
+        }
+
+        long evictions() {
+            return evictions.sum();
+        }
+
+        @Override
+        public String toString() {
+            long hitCount = hits();
+            long total = hitCount + misses();
+            return String.format("StatementCache{hits=%d, misses=%d, evictions=%d, hitRatio=%.2f}",
+                    hitCount, misses(), evictions(), total == 0 ? 0.0 : (double) hitCount / total);
+        }
+    }
+
+    // the two prepareStatement overloads the DAOs use produce different statements, so both are part of the key
+    private record Key(String sql, int autoGeneratedKeys) {
+    }
+
+    private static class Entry {
+        private final PreparedStatement statement;
+        private boolean inUse;
+        private boolean evicted;
+
+        Entry(PreparedStatement statement) {
+            this.statement = statement;
+        }
+    }
+
+    private final int maxSize;
+    private final Stats stats;
+    // access ordered, so the eldest entry is the least recently used
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    StatementCache(int maxSize, Stats stats) {
+        this.maxSize = maxSize;
+        this.stats = stats;
+    }
+
+    /**
+     * Gets a prepared statement for some SQL, preparing it on the physical connection only if it isn't cached
+     *
+     * @param physical connection to prepare on
+     * @param owner connection the borrower sees, returned by the statement's getConnection
+     * @param sql SQL to prepare
+     * @param autoGeneratedKeys Statement.RETURN_GENERATED_KEYS or NO_GENERATED_KEYS
+     * @return statement to use and close like any other
+     * @throws SQLException if the statement can't be prepared
+     */
+    PreparedStatement prepare(Connection physical, Connection owner, String sql, int autoGeneratedKeys)
+            throws SQLException {
+        if (maxSize <= 0) {
+            return physical.prepareStatement(sql, autoGeneratedKeys);
+        }
+
+        Key key = new Key(sql, autoGeneratedKeys);
+        Entry entry = entries.get(key);
+        if (entry != null && !entry.inUse) {
+            stats.hits.increment();
+            entry.inUse = true;
+            return lend(entry, owner);
+        }
+
+        stats.misses.increment();
+        PreparedStatement statement = physical.prepareStatement(sql, autoGeneratedKeys);
+        if (entry != null) {
+            // the cached one is still open further up the stack, so this one isn't cached
+            return statement;
+        }
+
+        entry = new Entry(statement);
+        entry.inUse = true;
+        entries.put(key, entry);
+        evictOverflow();
+        return lend(entry, owner);
+    }
+
+    /**
+     * Closes every cached statement, for when the connection itself is being closed
+     */
+    void closeAll() {
+        for (Entry entry : entries.values()) {
+            entry.evicted = true;
+            if (!entry.inUse) {
+                closeQuietly(entry.statement);
+            }
+        }
+        entries.clear();
+    }
+
+    /**
+     * @return number of statements cached
+     */
+    int size() {
+        return entries.size();
+    }
+
+    //-------------------------------------------------------------------------------------------------------------
+    // Helper Functions
+    //-------------------------------------------------------------------------------------------------------------
+
+    /**
+     * drops least recently used statements until the cache is back to its size, skipping any still open
+     */
+    private void evictOverflow() {
+        Iterator<Entry> it = entries.values().iterator();
+        while (entries.size() > maxSize && it.hasNext()) {
+            Entry eldest = it.next();
+            if (eldest.inUse) {
+                continue;
+            }
+            it.remove();
+            eldest.evicted = true;
+            closeQuietly(eldest.statement);
+            stats.evictions.increment();
+        }
+    }
+
+    /**
+     * wraps a cached statement for one use: close() gives it back to the cache and every other call goes
+     * to the real statement until then
+     */
+    private PreparedStatement lend(Entry entry, Connection owner) {
+        boolean[] closed = {false};
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "close" -> {
+                            if (!closed[0]) {
+                                closed[0] = true;
+                                giveBack(entry);
+                            }
+                            return null;
+                        }
+                        case "isClosed" -> {
+                            return closed[0] || entry.statement.isClosed();
+                        }
+                        case "getConnection" -> {
+                            return owner;
+                        }
+                        case "equals" -> {
+                            return proxy == args[0];
+                        }
+                        case "hashCode" -> {
+                            return System.identityHashCode(proxy);
+                        }
+                        case "toString" -> {
+                            return "Cached[" + entry.statement + "]";
+                        }
+                        default -> {
+                            if (closed[0]) {
+                                throw new SQLException("Statement is closed");
+                            }
+                            try {
+                                return method.invoke(entry.statement, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getCause();
+                            }
+                        }
+                    }
+                });
+    }
+
+    /**
+     * resets a statement a borrower has closed so it's ready for the next one
+     */
+    private void giveBack(Entry entry) {
+        entry.inUse = false;
+        if (entry.evicted) {
+            closeQuietly(entry.statement);
+            return;
+        }
+        try {
+            ResultSet rs = entry.statement.getResultSet();
+            if (rs != null) {
+                rs.close();
+            }
+            entry.statement.clearParameters();
+            // rows left in a batch (say addBatch threw partway through) would run on the next borrower's executeBatch
+            entry.statement.clearBatch();
+        } catch (SQLException e) {
+            // a statement that can't be reset can't be reused
+            entries.values().remove(entry);
+            entry.evicted = true;
+            closeQuietly(entry.statement);
+        }
+    }
+
+    private static void closeQuietly(Statement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            // it's being thrown away anyway
+        }
+    }
+}
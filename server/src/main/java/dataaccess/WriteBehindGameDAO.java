@@ -0,0 +1,420 @@
+package dataaccess;
+
+import chess.ChessGame;
+import model.GameData;
+import model.ListGameData;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * GameDAO that keeps games being played in memory in front of another GameDAO (normally MySqlGameDAO),
+ * so a move doesn't have to wait on the database to read the game and write it back.
+ * <p>
+ * getGame answers from memory once a game has been loaded, and updateGame only records the new state.
+ * Dirty games are written to the wrapped DAO in one batch by a background thread at least every flush
+ * interval, so the database is never more than that far behind. A game that ends has its own state saved
+ * straight away (the other dirty games wait for the next flush), and everything is flushed by close().
+ * Adding games, changing players and deleting games are written through. Games are copied in and out, so
+ * callers can't change the resident state by accident.
+ */
+public class WriteBehindGameDAO implements GameDAO, AutoCloseable {
+
+    public static final int DEFAULT_MAX_RESIDENT = 1_000;
+    public static final Duration DEFAULT_FLUSH_INTERVAL = Duration.ofMillis(500);
+    // games share version counters by gameID modulo this, so the counters don't grow with the number of games
+    private static final int VERSION_STRIPES = 64;
+
+    private final GameDAO gameDB;
+
+    // access ordered so the eldest entry is the least recently used; games with unsaved moves aren't dropped
+    private final LinkedHashMap<Integer, GameData> resident;
+    // latest unsaved state for each dirty game
+    private Map<Integer, ChessGame> dirty = new HashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    // only one flush at a time, so an older state can never be written over a newer one
+    private final ReentrantLock flushLock = new ReentrantLock();
+    // bumped (under lock) by every change written straight through to the wrapped DAO, so a load that read the
+    // game before the change doesn't cache what it read: a stale player, a finished game or a deleted one
+    private final long[] versions = new long[VERSION_STRIPES];
+
+    private final ScheduledExecutorService flusher;
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder gamesFlushed = new LongAdder();
+
+    public WriteBehindGameDAO(GameDAO gameDB) {
+        this(gameDB, DEFAULT_MAX_RESIDENT, DEFAULT_FLUSH_INTERVAL);
+    }
+
+    /**
+     * @param gameDB DAO the games are saved to
+     * @param maxResident how many games to keep in memory (games with unsaved moves are kept regardless)
+     * @param flushInterval longest time a move can go unsaved; zero or negative means games are only saved
+     *                      by flush(), close() or the game ending
+     */
+    public WriteBehindGameDAO(GameDAO gameDB, int maxResident, Duration flushInterval) {
+        this.gameDB = gameDB;
+        this.resident = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, GameData> eldest) {
+                return size() > maxResident && !dirty.containsKey(eldest.getKey());
+            }
+        };
+
+        if (flushInterval.isPositive()) {
+            flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "game-write-behind");
+                t.setDaemon(true);
+                return t;
+            });
+            long millis = Math.max(1, flushInterval.toMillis());
+            flusher.scheduleWithFixedDelay(this::flushQuietly, millis, millis, TimeUnit.MILLISECONDS);
+        } else {
+            flusher = null;
+        }
+    }
+
+    public Integer addGame(GameData game) throws DataAccessException {
+        return gameDB.addGame(game);
+    }
+
+    public void updateGameWhitePlayer(int gameID, String username) throws DataAccessException {
+        gameDB.updateGameWhitePlayer(gameID, username);
+        lock.lock();
+        try {
+            bumpVersion(gameID);
+            GameData game = resident.get(gameID);
+            if (game != null) {
+                resident.put(gameID, GameData.lazy(gameID, username, game.blackUsername(), game.gameName(),
+                        game::game, game.gameOver()));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void updateGameBlackPlayer(int gameID, String username) throws DataAccessException {
+        gameDB.updateGameBlackPlayer(gameID, username);
+        lock.lock();
+        try {
+            bumpVersion(gameID);
+            GameData game = resident.get(gameID);
+            if (game != null) {
+                resident.put(gameID, GameData.lazy(gameID, game.whiteUsername(), username, game.gameName(),
+                        game::game, game.gameOver()));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void updateGame(int gameID, ChessGame game) throws DataAccessException {
+        ChessGame copy = new ChessGame(game);
+        GameData current = getResident(gameID);
+        if (current == null) {
+            // nothing to update in memory, so there's nothing to save later either
+            gameDB.updateGame(gameID, copy);
+            return;
+        }
+        lock.lock();
+        try {
+            current = resident.get(gameID);
+            if (current != null) {
+                resident.put(gameID, new GameData(gameID, current.whiteUsername(), current.blackUsername(),
+                        current.gameName(), copy, current.gameOver()));
+                dirty.put(gameID, copy);
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        // evicted or ended since it was loaded, so the copy in hand may be out of date; don't bring it back
+        gameDB.updateGame(gameID, copy);
+    }
+
+    public void updateGameOver(int gameID) throws DataAccessException {
+        // save the final position before the game is marked over, then stop keeping it in memory
+        saveNow(gameID);
+        gameDB.updateGameOver(gameID);
+        lock.lock();
+        try {
+            bumpVersion(gameID);
+            resident.remove(gameID);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public GameData getGame(int gameID) throws DataAccessException {
+        GameData game = getResident(gameID);
+        return game == null ? null : copyOf(game);
+    }
+
+    public Collection<GameData> listGames() throws DataAccessException {
+        Collection<GameData> games = gameDB.listGames();
+        lock.lock();
+        try {
+            if (dirty.isEmpty()) {
+                return games;
+            }
+            // the database may be behind on games being played, so use the resident state for those
+            Collection<GameData> current = new ArrayList<>(games.size());
+            for (GameData game : games) {
+                GameData live = dirty.containsKey(game.gameID()) ? resident.get(game.gameID()) : null;
+                current.add(live == null ? game : live);
+            }
+            return current;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public List<ListGameData> listGameSummaries(int afterGameID, int limit) throws DataAccessException {
+        // names and players are written through, so the wrapped DAO is never behind on these
+        return gameDB.listGameSummaries(afterGameID, limit);
+    }
+
+    public void deleteAllGames() throws DataAccessException {
+        flushLock.lock();
+        try {
+            // holding flushLock means no batch can write the games back while they're being deleted
+            gameDB.deleteAllGames();
+            lock.lock();
+            try {
+                resident.clear();
+                dirty = new HashMap<>();
+                for (int i = 0; i < VERSION_STRIPES; i++) {
+                    versions[i]++;
+                }
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    //-------------------------------------------------------------------------------------------------------------
+    // Custom Methods
+    //-------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Writes every dirty game to the wrapped DAO in one batch. Games that fail to save stay dirty and are
+     * tried again on the next flush.
+     *
+     * @throws DataAccessException if the batch couldn't be saved
+     */
+    public void flush() throws DataAccessException {
+        flushLock.lock();
+        try {
+            Map<Integer, ChessGame> batch;
+            lock.lock();
+            try {
+                if (dirty.isEmpty()) {
+                    return;
+                }
+                batch = dirty;
+                dirty = new HashMap<>();
+            } finally {
+                lock.unlock();
+            }
+
+            try {
+                gameDB.updateGames(batch);
+                flushes.increment();
+                gamesFlushed.add(batch.size());
+            } catch (DataAccessException e) {
+                lock.lock();
+                try {
+                    // anything moved again since the batch was taken is newer, so keep that instead
+                    for (Map.Entry<Integer, ChessGame> game : batch.entrySet()) {
+                        dirty.putIfAbsent(game.getKey(), game.getValue());
+                    }
+                } finally {
+                    lock.unlock();
+                }
+                throw e;
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Stops the background flush and saves everything that's still dirty
+     *
+     * @throws DataAccessException if the last flush fails
+     */
+    @Override
+    public void close() throws DataAccessException {
+        if (flusher != null) {
+            flusher.shutdown();
+            try {
+                flusher.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+    }
+
+    /**
+     * @return number of games with moves that haven't been saved yet
+     */
+    public int dirtyCount() {
+        lock.lock();
+        try {
+            return dirty.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return number of games kept in memory right now
+     */
+    public int residentCount() {
+        lock.lock();
+        try {
+            return resident.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return number of batches written to the wrapped DAO
+     */
+    public long getFlushes() {
+        return flushes.sum();
+    }
+
+    /**
+     * @return number of game states written to the wrapped DAO, across all batches
+     */
+    public long getGamesFlushed() {
+        return gamesFlushed.sum();
+    }
+
+    //-------------------------------------------------------------------------------------------------------------
+    // Helper Functions
+    //-------------------------------------------------------------------------------------------------------------
+
+    /**
+     * gets the resident copy of a game, loading it from the wrapped DAO if it isn't in memory yet
+     */
+    private GameData getResident(int gameID) throws DataAccessException {
+        while (true) {
+            long startVersion;
+            lock.lock();
+            try {
+                GameData game = resident.get(gameID);
+                if (game != null) {
+                    return game;
+                }
+                startVersion = versions[stripe(gameID)];
+            } finally {
+                lock.unlock();
+            }
+
+            // load it outside the lock so other games aren't held up by the database
+            GameData loaded = gameDB.getGame(gameID);
+            if (loaded == null || loaded.gameOver()) {
+                // finished games aren't being played, so they aren't worth keeping around
+                return loaded;
+            }
+            loaded = copyOf(loaded);
+            lock.lock();
+            try {
+                if (versions[stripe(gameID)] == startVersion) {
+                    // someone else may have loaded (and moved in) the game while this was reading it
+                    GameData raced = resident.putIfAbsent(gameID, loaded);
+                    return raced == null ? loaded : raced;
+                }
+            } finally {
+                lock.unlock();
+            }
+            // the game (or one sharing its stripe) was changed while this was reading it, so read it again
+        }
+    }
+
+    private static int stripe(int gameID) {
+        return Math.floorMod(gameID, VERSION_STRIPES);
+    }
+
+    /**
+     * marks a game as changed in the wrapped DAO; call with lock held
+     */
+    private void bumpVersion(int gameID) {
+        versions[stripe(gameID)]++;
+    }
+
+    /**
+     * copies a game without decoding it, so callers that only look at the players don't pay for the board
+     */
+    private static GameData copyOf(GameData game) {
+        return GameData.lazy(game.gameID(), game.whiteUsername(), game.blackUsername(), game.gameName(), () -> {
+            ChessGame chess = game.game();
+            return chess == null ? null : new ChessGame(chess);
+        }, game.gameOver());
+    }
+
+    /**
+     * writes one game's unsaved state straight away, leaving every other dirty game to the next flush
+     */
+    private void saveNow(int gameID) throws DataAccessException {
+        // taking flushLock waits out a flush that might be writing an older state of this game
+        flushLock.lock();
+        try {
+            ChessGame pending;
+            lock.lock();
+            try {
+                pending = dirty.remove(gameID);
+            } finally {
+                lock.unlock();
+            }
+            if (pending == null) {
+                return;
+            }
+
+            try {
+                gameDB.updateGame(gameID, pending);
+                flushes.increment();
+                gamesFlushed.increment();
+            } catch (DataAccessException e) {
+                lock.lock();
+                try {
+                    dirty.putIfAbsent(gameID, pending);
+                } finally {
+                    lock.unlock();
+                }
+                throw e;
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * background flush: a failure is logged and the games are tried again next time
+     */
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (DataAccessException e) {
+            System.out.println("Unable to save games: " + e.getMessage());
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+}
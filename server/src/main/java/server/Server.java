@@ -1,33 +1,65 @@
 package server;
 
-import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonWriter;
 import dataaccess.*;
 import facade.BadRequestException;
 import model.*;
+import serialization.Serializer;
+import server.websocket.GameCommandExecutor;
 import server.websocket.WebsocketHandler;
 import spark.*;
+import spark.embeddedserver.EmbeddedServers;
+import spark.embeddedserver.jetty.EmbeddedJettyFactory;
 import service.*;
 
-import java.util.Collection;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
+import java.util.List;
 
 public class Server {
 
+    // system property: true runs HTTP requests and WebSocket commands on virtual threads
+    public static final String VIRTUAL_THREADS_PROPERTY = "chess.virtualThreads";
+    // system property: most BCrypt hashes (register and login) computed at once
+    public static final String BCRYPT_MAX_CONCURRENT_PROPERTY = "chess.bcrypt.maxConcurrent";
+
+    private final boolean virtualThreads;
     private ClearService clearService;
     private GameService gameService;
     private UserService userService;
     private WebsocketHandler websocketHandler;
+    private WriteBehindGameDAO gameDB;
 
     public Server() {
+        this(Boolean.getBoolean(VIRTUAL_THREADS_PROPERTY));
+    }
+
+    /**
+     * @param virtualThreads true to run HTTP requests and WebSocket commands on virtual threads instead of
+     *                       Jetty's thread pool and one game-command thread per core
+     */
+    public Server(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
         try {
-            AuthDAO authDB = new MySqlAuthDAO();
-            GameDAO gameDB = new MySqlGameDAO();
+            // auth tokens are checked on every request and WebSocket message, so keep recent ones in memory
+            AuthDAO authDB = new CachingAuthDAO(new MySqlAuthDAO());
+            // games being played are kept in memory so moves don't wait on the database; saved in the background
+            gameDB = new WriteBehindGameDAO(new MySqlGameDAO());
             UserDAO userDB = new MySqlUserDAO();
 
             clearService = new ClearService(authDB, gameDB, userDB);
             gameService = new GameService(authDB, gameDB);
-            userService = new UserService(authDB, userDB);
-            websocketHandler = new WebsocketHandler(userService, gameService);
+            // the connection pool caps database work; this caps BCrypt, which would otherwise use every core
+            int bcryptLimit = Integer.getInteger(BCRYPT_MAX_CONCURRENT_PROPERTY,
+                    Runtime.getRuntime().availableProcessors());
+            userService = new UserService(authDB, userDB, new ConcurrencyLimiter("bcrypt", bcryptLimit));
+            websocketHandler = new WebsocketHandler(userService, gameService,
+                    virtualThreads ? GameCommandExecutor.onVirtualThreads() : new GameCommandExecutor());
         } catch(DataAccessException e) {
             System.out.println(e.getMessage());
         }
@@ -35,6 +67,13 @@ public class Server {
 
     public int run(int desiredPort){ //exceptions should be caught before the Server (like in the handler)
 
+        // Spark keeps its server factory statically, so set it every time in case another Server changed it
+        EmbeddedJettyFactory jetty = new EmbeddedJettyFactory();
+        if (virtualThreads) {
+            jetty.withThreadPool(new VirtualThreadPool());
+        }
+        EmbeddedServers.add(EmbeddedServers.Identifiers.JETTY, jetty);
+
         Spark.port(desiredPort);
 
         Spark.staticFiles.location("web");
@@ -57,6 +96,21 @@ public class Server {
     public void stop() {
         Spark.stop();
         Spark.awaitStop();
+        if (websocketHandler != null) {
+            websocketHandler.shutdown();
+        }
+        // save any moves that haven't been written to the database yet
+        if (gameDB != null) {
+            try {
+                gameDB.close();
+            } catch (DataAccessException e) {
+                System.out.println(e.getMessage());
+            }
+        }
+        // how well the prepared statement cache did, for tuning db.pool.statementCacheSize
+        System.out.printf("Statement cache: hits=%d, misses=%d, evictions=%d%n",
+                DatabaseManager.getStatementCacheHits(), DatabaseManager.getStatementCacheMisses(),
+                DatabaseManager.getStatementCacheEvictions());
     }
 
     public Object clearHandler(Request req, Response res) throws DataAccessException {
@@ -66,35 +120,35 @@ public class Server {
     }
 
     public Object registerHandler(Request req, Response res) {
-        RegisterRequest request = new Gson().fromJson(req.body(), RegisterRequest.class);
+        RegisterRequest request = Serializer.fromJson(req.body(), RegisterRequest.class);
         try {
             RegisterResult result = userService.registerUser(request);
             res.status(200);
-            return new Gson().toJson(result);
+            return Serializer.toJson(result);
         } catch(BadRequestException e) {
             res.status(400);
-            return new Gson().toJson(exceptionMessageGenerator(e)); //make full error message and return json object
+            return Serializer.toJson(exceptionMessageGenerator(e)); //make full error message and return json object
         } catch(AlreadyTakenException e) {
             res.status(403);
-            return new Gson().toJson(exceptionMessageGenerator(e)); //make full error message and return json object
+            return Serializer.toJson(exceptionMessageGenerator(e)); //make full error message and return json object
         } catch (Exception e) {
             res.status(500);
-            return new Gson().toJson(exceptionMessageGenerator(e)); //make full error message and return json object
+            return Serializer.toJson(exceptionMessageGenerator(e)); //make full error message and return json object
         }
     }
 
     public Object loginHandler(Request req, Response res) {
-        LoginRequest request = new Gson().fromJson(req.body(), LoginRequest.class);
+        LoginRequest request = Serializer.fromJson(req.body(), LoginRequest.class);
         try {
             LoginResult result = userService.loginUser(request);
             res.status(200);
-            return new Gson().toJson(result);
+            return Serializer.toJson(result);
         } catch (UnauthorizedException e) {
             res.status(401);
-            return new Gson().toJson(exceptionMessageGenerator(e));
+            return Serializer.toJson(exceptionMessageGenerator(e));
         } catch (DataAccessException e) {
             res.status(500);
-            return new Gson().toJson(exceptionMessageGenerator(e));
+            return Serializer.toJson(exceptionMessageGenerator(e));
         }
     }
 
@@ -106,67 +160,77 @@ public class Server {
             return "{}";
         } catch (UnauthorizedException e) {
             res.status(401);
-            return new Gson().toJson(exceptionMessageGenerator(e));
+            return Serializer.toJson(exceptionMessageGenerator(e));
         } catch (DataAccessException e) {
             res.status(500);
-            return new Gson().toJson(exceptionMessageGenerator(e));
+            return Serializer.toJson(exceptionMessageGenerator(e));
         }
     }
 
     public Object listGamesHandler(Request req, Response res) {
         String authToken = req.headers("Authorization");
         try {
-            Collection<ListGameData> games = gameService.listGames(authToken);
-            HashMap<String, Collection<ListGameData>> resMap = new HashMap<>();
-            resMap.put("games",games);
+            // keyset paging: ?after=<last gameID of the previous page>&limit=<page size>, both optional;
+            // without a limit the client gets a default-sized page, so one request can't pull every game
+            int after = intQueryParam(req, "after");
+            int limit = intQueryParam(req, "limit");
+            List<ListGameData> games = gameService.listGames(authToken, after, limit);
             res.status(200);
-            return new Gson().toJson(resMap);
+            res.type("application/json");
+            writeGames(res, games);
+            return "";
+        } catch (BadRequestException e) {
+            res.status(400);
+            return Serializer.toJson(exceptionMessageGenerator(e));
+        } catch (IOException e) {
+            // the client went away while the list was being written, so there's no one to tell
+            return "";
         } catch (UnauthorizedException e) {
             res.status(401);
-            return new Gson().toJson(exceptionMessageGenerator(e));
+            return Serializer.toJson(exceptionMessageGenerator(e));
         } catch (DataAccessException e) {
             res.status(500);
-            return new Gson().toJson(exceptionMessageGenerator(e));
+            return Serializer.toJson(exceptionMessageGenerator(e));
         }
     }
 
     public Object createGameHandler(Request req, Response res) {
         try {
             String authToken = req.headers("Authorization");
-            CreateRequest createReq = new Gson().fromJson(req.body(), CreateRequest.class);
+            CreateRequest createReq = Serializer.fromJson(req.body(), CreateRequest.class);
             int gameID = gameService.createGame(authToken, createReq.gameName());
             HashMap<String, Integer> resMap = new HashMap<>();
             resMap.put("gameID",gameID);
             res.status(200);
-            return new Gson().toJson(resMap);
+            return Serializer.toJson(resMap);
         } catch (UnauthorizedException e) {
             res.status(401);
-            return new Gson().toJson(exceptionMessageGenerator(e));
+            return Serializer.toJson(exceptionMessageGenerator(e));
         } catch (DataAccessException e) {
             res.status(500);
-            return new Gson().toJson(exceptionMessageGenerator(e));
+            return Serializer.toJson(exceptionMessageGenerator(e));
         }
     }
 
     public Object joinGameHandler(Request req, Response res) {
         try {
             String authToken = req.headers("Authorization");
-            JoinRequest joinReq = new Gson().fromJson(req.body(), JoinRequest.class);
+            JoinRequest joinReq = Serializer.fromJson(req.body(), JoinRequest.class);
             gameService.joinGame(authToken, joinReq.playerColor(), joinReq.gameID());
             res.status(200);
             return "{}";
         } catch(BadRequestException e) {
             res.status(400);
-            return new Gson().toJson(exceptionMessageGenerator(e)); //make full error message and return json object
+            return Serializer.toJson(exceptionMessageGenerator(e)); //make full error message and return json object
         } catch (UnauthorizedException e) {
             res.status(401);
-            return new Gson().toJson(exceptionMessageGenerator(e));
+            return Serializer.toJson(exceptionMessageGenerator(e));
         } catch(AlreadyTakenException e) {
             res.status(403);
-            return new Gson().toJson(exceptionMessageGenerator(e)); //make full error message and return json object
+            return Serializer.toJson(exceptionMessageGenerator(e)); //make full error message and return json object
         } catch (Exception e) {
             res.status(500);
-            return new Gson().toJson(exceptionMessageGenerator(e)); //make full error message and return json object
+            return Serializer.toJson(exceptionMessageGenerator(e)); //make full error message and return json object
         }
     }
 
@@ -175,4 +239,42 @@ public class Server {
         resMap.put("message", "Error: " + e.getMessage());
         return resMap;
     }
-}
\ No newline at end of file
+
+    //-------------------------------------------------------------------------------------------------------------
+    // Helper Functions
+    //-------------------------------------------------------------------------------------------------------------
+
+    /**
+     * reads a non-negative whole number from the query string, 0 if it isn't there
+     */
+    private static int intQueryParam(Request req, String name) throws BadRequestException {
+        String value = req.queryParams(name);
+        if (value == null || value.isEmpty()) {
+            return 0;
+        }
+        try {
+            int parsed = Integer.parseInt(value);
+            if (parsed >= 0) {
+                return parsed;
+            }
+        } catch (NumberFormatException e) {
+            // falls through to the error below
+        }
+        throw new BadRequestException("Invalid " + name + ": " + value);
+    }
+
+    /**
+     * writes one page of games as {"games": [...]} to the response, without building the body as a String first
+     */
+    private static void writeGames(Response res, List<ListGameData> games) throws IOException {
+        Writer out = new BufferedWriter(new OutputStreamWriter(res.raw().getOutputStream(), StandardCharsets.UTF_8));
+        JsonWriter json = Serializer.newJsonWriter(out);
+        TypeAdapter<ListGameData> adapter = Serializer.adapter(ListGameData.class);
+        json.beginObject().name("games").beginArray();
+        for (ListGameData game : games) {
+            adapter.write(json, game);
+        }
+        json.endArray().endObject();
+        json.flush();
+    }
+}
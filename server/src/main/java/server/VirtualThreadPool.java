@@ -0,0 +1,87 @@
+package server;
+
+import org.eclipse.jetty.util.component.AbstractLifeCycle;
+import org.eclipse.jetty.util.thread.ThreadPool;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Jetty thread pool that runs every job on a new virtual thread, so a request blocked on the database or
+ * BCrypt doesn't hold a platform thread. There's no cap on how many jobs run at once; the limits on what
+ * those jobs wait for (the connection pool, the BCrypt limiter) are what keep the server from being swamped.
+ */
+public class VirtualThreadPool extends AbstractLifeCycle implements ThreadPool {
+
+    private final AtomicInteger running = new AtomicInteger();
+    private volatile ExecutorService executor;
+
+    @Override
+    protected void doStart() throws Exception {
+        executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("http-virtual-", 0).factory());
+        super.doStart();
+    }
+
+    @Override
+    protected void doStop() throws Exception {
+        super.doStop();
+        executor.shutdown();
+        // requests get a moment to finish; anything still going after that is interrupted
+        if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+            executor.shutdownNow();
+        }
+    }
+
+    @Override
+    public void execute(Runnable job) {
+        ExecutorService current = executor;
+        if (current == null) {
+            throw new RejectedExecutionException("VirtualThreadPool isn't started");
+        }
+        current.execute(() -> {
+            running.incrementAndGet();
+            try {
+                job.run();
+            } finally {
+                running.decrementAndGet();
+            }
+        });
+    }
+
+    @Override
+    public void join() throws InterruptedException {
+        ExecutorService current = executor;
+        if (current != null) {
+            while (!current.awaitTermination(1, TimeUnit.SECONDS)) {
+                // keep waiting until the pool is stopped
+            }
+        }
+    }
+
+    /**
+     * @return jobs running right now (each one has its own virtual thread)
+     */
+    @Override
+    public int getThreads() {
+        return running.get();
+    }
+
+    /**
+     * @return always 0, virtual threads are made for each job rather than kept waiting
+     */
+    @Override
+    public int getIdleThreads() {
+        return 0;
+    }
+
+    /**
+     * @return always false, there's always another virtual thread
+     */
+    @Override
+    public boolean isLowOnThreads() {
+        return false;
+    }
+}
@@ -5,19 +5,44 @@ import org.eclipse.jetty.websocket.api.Session;
 import websocket.messages.ServerMessage;
 
 import java.io.IOException;
-import java.util.ArrayList;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Tracks who is connected to which game. Connections are indexed both by username and by game, so a
+ * broadcast only looks at the players and observers of that one game, however many games are running.
+ */
 public class ConnectionManager {
-    public ConcurrentHashMap<String, Connection> connections = new ConcurrentHashMap<>();
+    // each user has at most one connection, to the game they last sent a command for
+    private final ConcurrentHashMap<String, Connection> connections = new ConcurrentHashMap<>();
+    // everyone connected to each game; a game's set is dropped once it's empty
+    private final ConcurrentHashMap<Integer, Set<Connection>> games = new ConcurrentHashMap<>();
 
     public void add(String username, int gameID, Session session) {
         Connection connection = new Connection(username, gameID, session);
-        connections.put(username, connection);
+        Connection old = connections.put(username, connection);
+        if (old != null) {
+            // the user moved to another game (or reconnected), so stop sending them the old game's messages
+            leaveGame(old);
+        }
+        games.compute(gameID, (id, members) -> {
+            if (members == null) {
+                members = ConcurrentHashMap.newKeySet();
+            }
+            members.add(connection);
+            return members;
+        });
+        if (connections.get(username) != connection) {
+            // a newer add or a remove for this user won the race, so this connection isn't theirs anymore
+            leaveGame(connection);
+        }
     }
 
     public void remove(String username) {
-        connections.remove(username);
+        Connection c = connections.remove(username);
+        if (c != null) {
+            leaveGame(c);
+        }
     }
 
     // Send a message to a specific user
@@ -33,39 +58,69 @@ public class ConnectionManager {
     }
 
     public void broadcastExcept(int currentGameID, String excludeUsername, ServerMessage msg) throws IOException {
-        ArrayList<Connection> removeList = new ArrayList<>();
-        for (Connection c : connections.values()) {
-            if (c.session.isOpen()) {
-                if (c.gameID.equals(currentGameID) && !c.username.equals(excludeUsername)) {
-                    c.send(msg.toString());
-                }
-            } else {
-                 removeList.add(c);
-            }
-        }
-
-        for (Connection c : removeList) {
-            connections.remove(c.username);
-        }
+        broadcast(currentGameID, excludeUsername, msg);
     }
 
     // Broadcast to all users in a given game, including the sender
     public void broadcastAll(int gameID, ServerMessage msg) throws IOException {
-        ArrayList<Connection> removeList = new ArrayList<>();
+        broadcast(gameID, null, msg);
+    }
 
-        for (Connection c : connections.values()) {
-            if (c.session.isOpen()) {
-                if (c.gameID == gameID) {
-                    c.send(msg.toString());
-                }
-            } else {
-                removeList.add(c);
+    //-------------------------------------------------------------------------------------------------------------
+    // Custom Methods
+    //-------------------------------------------------------------------------------------------------------------
+
+    /**
+     *
+     * @return number of users connected to any game
+     */
+    public int connectionCount() {
+        return connections.size();
+    }
+
+    /**
+     *
+     * @param gameID game to count
+     * @return number of players and observers connected to the game
+     */
+    public int connectionCount(int gameID) {
+        Set<Connection> members = games.get(gameID);
+        return members == null ? 0 : members.size();
+    }
+
+    //-------------------------------------------------------------------------------------------------------------
+    // Helper Functions
+    //-------------------------------------------------------------------------------------------------------------
+
+    /**
+     * sends a message to everyone in one game, dropping the game's closed sessions as it goes
+     */
+    private void broadcast(int gameID, String excludeUsername, ServerMessage msg) throws IOException {
+        Set<Connection> members = games.get(gameID);
+        if (members == null) {
+            return;
+        }
+        String json = msg.toString();
+        for (Connection c : members) {
+            if (!c.session.isOpen()) {
+                // only drop the user if this is still their connection, not a newer one
+                connections.remove(c.username, c);
+                leaveGame(c);
+            } else if (!c.username.equals(excludeUsername)) {
+                c.send(json);
             }
         }
+    }
 
-        for (Connection c : removeList) {
-            connections.remove(c.username);
-        }
+    /**
+     * takes a connection out of its game's set, and drops the set if it was the last one
+     */
+    private void leaveGame(Connection c) {
+        // done inside compute so a connection being added to the same game can't land in a dropped set
+        games.computeIfPresent(c.gameID, (id, members) -> {
+            members.remove(c);
+            return members.isEmpty() ? null : members;
+        });
     }
 
 }
@@ -0,0 +1,163 @@
+package server.websocket;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs WebSocket commands one game at a time: every game gets a mailbox, and the commands in a mailbox run
+ * one after another in the order they arrived, so a game's read-modify-write never races with itself.
+ * Mailboxes for different games run at the same time on a shared pool.
+ * <p>
+ * A mailbox only holds a pool thread while it has commands, and runs at most a handful before going to the
+ * back of the pool's queue, so one busy game can't starve the rest. Empty mailboxes are dropped.
+ */
+public class GameCommandExecutor {
+
+    // commands a mailbox runs before letting other games have the thread
+    static final int BATCH_SIZE = 16;
+
+    private final Executor pool;
+    private final ExecutorService ownedPool;
+    private final ConcurrentHashMap<Integer, Mailbox> mailboxes = new ConcurrentHashMap<>();
+
+    /**
+     * Makes an executor with its own pool of one thread per core
+     */
+    public GameCommandExecutor() {
+        this(newPool());
+    }
+
+    /**
+     * @param pool threads to run the mailboxes on; it isn't shut down by shutdown()
+     */
+    public GameCommandExecutor(Executor pool) {
+        this(pool, null);
+    }
+
+    /**
+     * Makes an executor that runs each mailbox on a new virtual thread, so a command waiting on the database
+     * doesn't hold a platform thread. Commands for one game still run one at a time.
+     *
+     * @return executor that shuts its virtual threads down with shutdown()
+     */
+    public static GameCommandExecutor onVirtualThreads() {
+        return new GameCommandExecutor(
+                Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("game-commands-", 0).factory()));
+    }
+
+    private GameCommandExecutor(ExecutorService ownedPool) {
+        this(ownedPool, ownedPool);
+    }
+
+    private GameCommandExecutor(Executor pool, ExecutorService ownedPool) {
+        this.pool = pool;
+        this.ownedPool = ownedPool;
+    }
+
+    /**
+     * Queues a command behind the game's other commands
+     *
+     * @param gameID game the command is for
+     * @param command what to run
+     */
+    public void submit(int gameID, Runnable command) {
+        boolean[] start = {false};
+        // the map's per-key lock is what makes adding a command and starting or dropping the mailbox atomic
+        Mailbox mailbox = mailboxes.compute(gameID, (id, box) -> {
+            if (box == null) {
+                box = new Mailbox(id);
+            }
+            box.commands.add(command);
+            if (!box.scheduled) {
+                box.scheduled = true;
+                start[0] = true;
+            }
+            return box;
+        });
+        if (start[0]) {
+            pool.execute(mailbox::drain);
+        }
+    }
+
+    /**
+     * @return number of games with commands waiting or running
+     */
+    public int activeGames() {
+        return mailboxes.size();
+    }
+
+    /**
+     * Stops the pool this executor made for itself, letting queued commands finish first
+     */
+    public void shutdown() {
+        if (ownedPool != null) {
+            ownedPool.shutdown();
+            try {
+                ownedPool.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    //-------------------------------------------------------------------------------------------------------------
+    // Helper Functions
+    //-------------------------------------------------------------------------------------------------------------
+
+    private static ExecutorService newPool() {
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), r -> {
+            Thread t = new Thread(r, "game-commands-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * one game's queue of commands. Only one pool thread drains it at a time, which scheduled tracks
+     */
+    private class Mailbox {
+        private final int gameID;
+        private final Queue<Runnable> commands = new ConcurrentLinkedQueue<>();
+        // only read and written inside mailboxes.compute for this game
+        private boolean scheduled;
+
+        Mailbox(int gameID) {
+            this.gameID = gameID;
+        }
+
+        void drain() {
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                Runnable command = commands.poll();
+                if (command == null) {
+                    break;
+                }
+                try {
+                    command.run();
+                } catch (RuntimeException e) {
+                    // one bad command mustn't stop the rest of the game's commands
+                    e.printStackTrace();
+                }
+            }
+
+            boolean[] more = {false};
+            mailboxes.compute(gameID, (id, box) -> {
+                if (commands.isEmpty()) {
+                    scheduled = false;
+                    return null;
+                }
+                more[0] = true;
+                return box;
+            });
+            if (more[0]) {
+                pool.execute(this::drain);
+            }
+        }
+    }
+}
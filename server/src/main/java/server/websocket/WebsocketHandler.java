@@ -3,12 +3,12 @@ package server.websocket;
 import chess.*;
 import dataaccess.DataAccessException;
 import model.*;
-import com.google.gson.Gson;
 import dataaccess.UnauthorizedException;
 import org.eclipse.jetty.websocket.api.Session;
 import org.eclipse.jetty.websocket.api.annotations.OnWebSocketMessage;
 import org.eclipse.jetty.websocket.api.annotations.WebSocket;
 
+import serialization.Serializer;
 import service.GameService;
 import service.UserService;
 import websocket.commands.MakeMoveCommand;
@@ -25,17 +25,40 @@ public class WebsocketHandler {
     private final UserService userService;
     private final GameService gameService;
     private final ConnectionManager connections = new ConnectionManager();
+    // commands for the same game run one at a time, in order; different games run in parallel
+    private final GameCommandExecutor gameCommands;
 
     public WebsocketHandler(UserService uService, GameService gService) {
+        this(uService, gService, new GameCommandExecutor());
+    }
+
+    public WebsocketHandler(UserService uService, GameService gService, GameCommandExecutor gameCommands) {
         this.userService = uService;
         this.gameService = gService;
+        this.gameCommands = gameCommands;
     }
 
     @OnWebSocketMessage
     public void onMessage(Session session, String msg) {
         try {
-            UserGameCommand cmd = new Gson().fromJson(msg, UserGameCommand.class);
+            UserGameCommand cmd = Serializer.fromJson(msg, UserGameCommand.class);
+            // hand the command to its game's mailbox so Jetty's thread is free straight away
+            gameCommands.submit(cmd.getGameID(), () -> handleCommand(session, cmd, msg));
+        } catch (Exception ex) {
+            ex.printStackTrace();
+            sendMessage(session.getRemote(), new ErrorMessage("Error: " + ex.getMessage()));
+        }
+    }
 
+    /**
+     * Stops running queued commands, for when the server is shutting down
+     */
+    public void shutdown() {
+        gameCommands.shutdown();
+    }
+
+    private void handleCommand(Session session, UserGameCommand cmd, String msg) {
+        try {
             // validate authToken
             String username = userService.getAuth(cmd.getAuthToken()).username();
 
@@ -86,7 +109,7 @@ public class WebsocketHandler {
 
     private void makeMove(Session session, String username, String rawMsg) {
         try {
-            MakeMoveCommand cmd = new Gson().fromJson(rawMsg, MakeMoveCommand.class);
+            MakeMoveCommand cmd = Serializer.fromJson(rawMsg, MakeMoveCommand.class);
 
             ChessMove move = cmd.getMove();
             int gameID = cmd.getGameID();
@@ -114,17 +137,21 @@ public class WebsocketHandler {
 
                     // send notification about check, checkmate, or stalemate to ALL clients
                     ChessGame.TeamColor opponent = game.getOpponentsColor(teamClr);
-                    if (game.isInCheck(opponent)) {
-                        NotificationMessage notifMsg = new NotificationMessage(opponent + " is in check");
-                        connections.broadcastAll(gameID, notifMsg);
-                    } else if (game.isInCheckmate(opponent)) {
-                        gameService.markGameOver(gameID);
-                        NotificationMessage notifMsg = new NotificationMessage(opponent + " is in checkmate - GAME OVER");
-                        connections.broadcastAll(gameID, notifMsg);
-                    } else if (game.isInStalemate(opponent)) {
-                        gameService.markGameOver(gameID);
-                        NotificationMessage notifMsg = new NotificationMessage(opponent + " is in stalemate - GAME OVER");
-                        connections.broadcastAll(gameID, notifMsg);
+                    switch (game.evaluateStatus(opponent)) {
+                        case CHECK -> connections.broadcastAll(gameID, new NotificationMessage(opponent + " is in check"));
+                        case CHECKMATE -> {
+                            NotificationMessage notifMsg = new NotificationMessage(opponent + " is in checkmate - GAME OVER");
+                            connections.broadcastAll(gameID, notifMsg);
+                            // saving the finished game waits on the database, so tell the players first
+                            gameService.markGameOver(gameID);
+                        }
+                        case STALEMATE -> {
+                            NotificationMessage notifMsg = new NotificationMessage(opponent + " is in stalemate - GAME OVER");
+                            connections.broadcastAll(gameID, notifMsg);
+                            // saving the finished game waits on the database, so tell the players first
+                            gameService.markGameOver(gameID);
+                        }
+                        case NORMAL -> { }
                     }
                 } else {
                     //sendMessage(session.getRemote(), new ErrorMessage("Error: invalid move - can only move your own pieces"));
@@ -174,6 +201,8 @@ public class WebsocketHandler {
             String teamColor = getTeamColor(username, gData);
             if (teamColor == null) {
                 sendMessage(session.getRemote(), new ErrorMessage("Error: cannot resign as observer "));
+            } else if (gData.gameOver()) {
+                sendMessage(session.getRemote(), new ErrorMessage("Error: GAME OVER - cannot resign from a finished game"));
             } else {
                 gameService.markGameOver(gameID);
 
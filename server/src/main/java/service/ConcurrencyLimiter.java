@@ -0,0 +1,71 @@
+package service;
+
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * Caps how many callers can use a downstream resource at once. Callers past the limit wait their turn
+ * (in arrival order) instead of piling more work onto it, which matters once handlers run on virtual
+ * threads and there's no longer a thread pool doing the capping.
+ */
+public class ConcurrencyLimiter {
+
+    private final String name;
+    private final int limit;
+    private final Semaphore permits;
+
+    /**
+     * @param name what's being limited, for toString
+     * @param limit most callers allowed in at once
+     */
+    public ConcurrencyLimiter(String name, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException(name + " limit must be at least 1, was " + limit);
+        }
+        this.name = name;
+        this.limit = limit;
+        this.permits = new Semaphore(limit, true);
+    }
+
+    /**
+     * Runs some work once there's room for it
+     *
+     * @param work what to run
+     * @return what the work returned
+     */
+    public <T> T call(Supplier<T> work) {
+        permits.acquireUninterruptibly();
+        try {
+            return work.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * @return most callers allowed in at once
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * @return callers running right now
+     */
+    public int getInFlight() {
+        return limit - permits.availablePermits();
+    }
+
+    /**
+     * @return roughly how many callers are waiting for room
+     */
+    public int getWaiting() {
+        return permits.getQueueLength();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ConcurrencyLimiter{%s, limit=%d, inFlight=%d, waiting=%d}",
+                name, limit, getInFlight(), getWaiting());
+    }
+}
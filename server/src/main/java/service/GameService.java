@@ -8,11 +8,15 @@ import model.ListGameData;
 import facade.BadRequestException;
 
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.List;
 import java.util.Objects;
 
 public class GameService {
 
+    // games per lobby page when the client doesn't ask for a size, and the most it can ask for
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int MAX_PAGE_SIZE = 500;
+
     private final AuthDAO authDB;
     private final GameDAO gameDB;
 
@@ -22,17 +26,25 @@ public class GameService {
     }
 
     public Collection<ListGameData> listGames(String authToken) throws UnauthorizedException, DataAccessException {
+        return listGames(authToken, 0, 0);
+    }
+
+    /**
+     * Lists one page of games for the lobby, without loading any of their boards
+     *
+     * @param authToken token of the user asking
+     * @param afterGameID only games with a higher gameID are listed (0 for the first page)
+     * @param limit most games to list, or 0 for {@link #DEFAULT_PAGE_SIZE}; never more than {@link #MAX_PAGE_SIZE}
+     * @return games in gameID order; a page shorter than the limit is the last one
+     */
+    public List<ListGameData> listGames(String authToken, int afterGameID, int limit)
+            throws UnauthorizedException, DataAccessException {
         AuthData auth = authDB.getAuth(authToken);
         if (auth == null) {
             throw new UnauthorizedException("Bad token");
         } else {
-            Collection<GameData> games = gameDB.listGames();
-            Collection<ListGameData> listedGames = new HashSet<>();
-            for (GameData game : games) {
-                ListGameData listedGame = new ListGameData(game.gameID(), game.whiteUsername(), game.blackUsername(), game.gameName());
-                listedGames.add(listedGame);
-            }
-            return listedGames;
+            int pageSize = limit == 0 ? DEFAULT_PAGE_SIZE : Math.min(limit, MAX_PAGE_SIZE);
+            return gameDB.listGameSummaries(afterGameID, pageSize);
         }
     }
 
@@ -12,10 +12,17 @@ public class UserService {
 
     private final AuthDAO authDB;
     private final UserDAO userDB;
+    // BCrypt is deliberately slow CPU work, so only this many hashes run at once
+    private final ConcurrencyLimiter bcrypt;
 
     public UserService(AuthDAO authDB, UserDAO userDB) {
+        this(authDB, userDB, new ConcurrencyLimiter("bcrypt", Runtime.getRuntime().availableProcessors()));
+    }
+
+    public UserService(AuthDAO authDB, UserDAO userDB, ConcurrencyLimiter bcrypt) {
         this.authDB = authDB;
         this.userDB = userDB;
+        this.bcrypt = bcrypt;
     }
 
     public RegisterResult registerUser(RegisterRequest request) throws AlreadyTakenException, BadRequestException, DataAccessException {
@@ -51,7 +58,7 @@ public class UserService {
         UserData user = userDB.getUser(username);
         if (user == null) {
             throw new UnauthorizedException("Unregistered username");
-        } else if (!BCrypt.checkpw(password, user.password())) {//Objects.equals(user.password(), safePassword)) {
+        } else if (!bcrypt.call(() -> BCrypt.checkpw(password, user.password()))) {//Objects.equals(user.password(), safePassword)) {
             throw new UnauthorizedException("Incorrect password");
         } else {
             String authToken = generateToken();
@@ -92,7 +99,7 @@ public class UserService {
     }
 
     private String encryptPassword(String password) {
-        return BCrypt.hashpw(password, BCrypt.gensalt());
+        return bcrypt.call(() -> BCrypt.hashpw(password, BCrypt.gensalt()));
     }
 
 }
@@ -21,6 +21,8 @@ class AuthDAOTest {
 
         if (databaseClass.equals(MemoryAuthDAO.class)) {
             db = new MemoryAuthDAO();
+        } else if (databaseClass.equals(CachingAuthDAO.class)) {
+            db = new CachingAuthDAO(new MySqlAuthDAO());
         } else {
             db = new MySqlAuthDAO(); // placeholder for when we add the MySqlDatabase
         }
@@ -30,7 +32,7 @@ class AuthDAOTest {
     }
 
     @ParameterizedTest
-    @ValueSource(classes = {MySqlAuthDAO.class, MemoryAuthDAO.class})
+    @ValueSource(classes = {MySqlAuthDAO.class, MemoryAuthDAO.class, CachingAuthDAO.class})
     void addAuth(Class<? extends AuthDAO> dbClass) throws DataAccessException {
         AuthDAO dataAccess = getAuthDataAccess(dbClass);
 
@@ -40,7 +42,7 @@ class AuthDAOTest {
     }
 
     @ParameterizedTest
-    @ValueSource(classes = {MySqlAuthDAO.class, MemoryAuthDAO.class})
+    @ValueSource(classes = {MySqlAuthDAO.class, MemoryAuthDAO.class, CachingAuthDAO.class})
     void getAuth(Class<? extends AuthDAO> dbClass) throws DataAccessException {
         AuthDAO dataAccess = getAuthDataAccess(dbClass);
 
@@ -53,7 +55,7 @@ class AuthDAOTest {
     }
 
     @ParameterizedTest
-    @ValueSource(classes = {MySqlAuthDAO.class, MemoryAuthDAO.class})
+    @ValueSource(classes = {MySqlAuthDAO.class, MemoryAuthDAO.class, CachingAuthDAO.class})
     void listAuths(Class<? extends AuthDAO> dbClass) throws DataAccessException {
         AuthDAO dataAccess = getAuthDataAccess(dbClass);
 
@@ -72,7 +74,7 @@ class AuthDAOTest {
     }
 
     @ParameterizedTest
-    @ValueSource(classes = {MySqlAuthDAO.class, MemoryAuthDAO.class})
+    @ValueSource(classes = {MySqlAuthDAO.class, MemoryAuthDAO.class, CachingAuthDAO.class})
     void deleteAuth(Class<? extends AuthDAO> dbClass) throws DataAccessException {
         AuthDAO dataAccess = getAuthDataAccess(dbClass);
         AuthData auth = new AuthData("1234", "PK");
@@ -85,7 +87,7 @@ class AuthDAOTest {
     }
 
     @ParameterizedTest
-    @ValueSource(classes = {MySqlAuthDAO.class, MemoryAuthDAO.class})
+    @ValueSource(classes = {MySqlAuthDAO.class, MemoryAuthDAO.class, CachingAuthDAO.class})
     void deleteAllAuths(Class<? extends AuthDAO> dbClass) throws DataAccessException {
         AuthDAO dataAccess = getAuthDataAccess(dbClass);
 
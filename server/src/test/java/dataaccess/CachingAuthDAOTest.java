@@ -0,0 +1,106 @@
+package dataaccess;
+
+import model.AuthData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachingAuthDAOTest {
+
+    private final AtomicInteger lookups = new AtomicInteger();
+    private final AtomicLong now = new AtomicLong();
+    private MemoryAuthDAO backing;
+    private CachingAuthDAO cache;
+
+    @BeforeEach
+    void setUp() {
+        // memory DAO that counts how often the cache had to go to it
+        backing = new MemoryAuthDAO() {
+            @Override
+            public AuthData getAuth(String authToken) {
+                lookups.incrementAndGet();
+                return super.getAuth(authToken);
+            }
+        };
+        cache = new CachingAuthDAO(backing, 2, Duration.ofSeconds(10), now::get);
+    }
+
+    @Test
+    void addIsWrittenThrough() throws DataAccessException {
+        AuthData auth = new AuthData("1234", "PK");
+        cache.addAuth(auth);
+
+        assertEquals(auth, backing.getAuth("1234"));
+        lookups.set(0);
+        assertEquals(auth, cache.getAuth("1234"));
+        assertEquals(0, lookups.get(), "a token that was just added should come from the cache");
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    void missesAreLoadedOnce() throws DataAccessException {
+        AuthData auth = new AuthData("1234", "PK");
+        backing.addAuth(auth);
+
+        assertEquals(auth, cache.getAuth("1234"));
+        assertEquals(auth, cache.getAuth("1234"));
+        assertEquals(auth, cache.getAuth("1234"));
+        assertEquals(1, lookups.get());
+        assertEquals(2, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void unknownTokensArentCached() throws DataAccessException {
+        assertNull(cache.getAuth("nope"));
+        backing.addAuth(new AuthData("nope", "PK"));
+        assertNotNull(cache.getAuth("nope"));
+        assertEquals(2, lookups.get());
+    }
+
+    @Test
+    void entriesExpire() throws DataAccessException {
+        cache.addAuth(new AuthData("1234", "PK"));
+
+        now.addAndGet(Duration.ofSeconds(9).toNanos());
+        cache.getAuth("1234");
+        assertEquals(0, lookups.get());
+
+        now.addAndGet(Duration.ofSeconds(2).toNanos());
+        cache.getAuth("1234");
+        assertEquals(1, lookups.get(), "an expired token should be looked up again");
+    }
+
+    @Test
+    void deleteInvalidates() throws DataAccessException {
+        cache.addAuth(new AuthData("1234", "PK"));
+        cache.deleteAuth("1234");
+        assertNull(cache.getAuth("1234"));
+
+        cache.addAuth(new AuthData("2345", "PP"));
+        cache.deleteAllAuths();
+        assertNull(cache.getAuth("2345"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void boundedByLeastRecentlyUsed() throws DataAccessException {
+        cache.addAuth(new AuthData("a", "A"));
+        cache.addAuth(new AuthData("b", "B"));
+        cache.getAuth("a");
+        cache.addAuth(new AuthData("c", "C"));
+
+        assertEquals(2, cache.size());
+        lookups.set(0);
+        cache.getAuth("a");
+        cache.getAuth("c");
+        assertEquals(0, lookups.get());
+        cache.getAuth("b");
+        assertEquals(1, lookups.get(), "b was least recently used and should have been dropped");
+    }
+}
@@ -0,0 +1,223 @@
+package dataaccess;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConnectionPoolTest {
+
+    // every physical connection the fake factory has opened, with flags the tests can flip
+    private final List<FakeConnection> opened = new ArrayList<>();
+    private ConnectionPool pool;
+
+    @AfterEach
+    void closePool() {
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    @Test
+    void reusesReturnedConnections() throws SQLException {
+        pool = newPool(0, 2, Duration.ofMinutes(5));
+
+        try (Connection conn = pool.borrow()) {
+            conn.createStatement();
+        }
+        try (Connection conn = pool.borrow()) {
+            conn.createStatement();
+        }
+
+        assertEquals(1, opened.size());
+        assertEquals(1, pool.size());
+        assertEquals(1, pool.idleCount());
+        assertFalse(opened.getFirst().closed.get());
+    }
+
+    @Test
+    void returnedHandleCantBeUsed() throws SQLException {
+        pool = newPool(0, 1, Duration.ofMinutes(5));
+
+        Connection conn = pool.borrow();
+        conn.close();
+        conn.close();
+        assertTrue(conn.isClosed());
+        assertThrows(SQLException.class, conn::createStatement);
+        assertEquals(1, pool.idleCount(), "closing twice should only return the connection once");
+    }
+
+    @Test
+    void timesOutWhenExhausted() throws SQLException {
+        pool = newPool(0, 2, Duration.ofMinutes(5));
+
+        pool.borrow();
+        pool.borrow();
+        assertThrows(SQLException.class, () -> pool.borrow());
+        assertEquals(2, opened.size());
+    }
+
+    @Test
+    void waitingBorrowerGetsReturnedConnection() throws Exception {
+        pool = newPool(0, 1, Duration.ofMinutes(5), Duration.ofSeconds(5));
+
+        Connection first = pool.borrow();
+        CompletableFuture<Connection> waiting = CompletableFuture.supplyAsync(() -> {
+            try {
+                return pool.borrow();
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        Thread.sleep(100);
+        assertFalse(waiting.isDone(), "second borrower should wait while the only connection is out");
+
+        first.close();
+        Connection second = waiting.get(5, TimeUnit.SECONDS);
+        assertFalse(second.isClosed());
+        assertEquals(1, opened.size());
+    }
+
+    @Test
+    void validatesIdleConnectionsOnBorrow() throws SQLException {
+        pool = newPool(0, 2, Duration.ofMinutes(5));
+
+        pool.borrow().close();
+        opened.getFirst().valid.set(false);
+
+        try (Connection conn = pool.borrow()) {
+            assertFalse(conn.isClosed());
+        }
+        assertEquals(2, opened.size(), "the invalid connection should have been replaced");
+        assertTrue(opened.getFirst().closed.get());
+        assertEquals(1, pool.size());
+    }
+
+    @Test
+    void rollsBackUnfinishedTransactions() throws SQLException {
+        pool = newPool(0, 1, Duration.ofMinutes(5));
+
+        try (Connection conn = pool.borrow()) {
+            conn.setAutoCommit(false);
+        }
+        assertTrue(opened.getFirst().rolledBack.get());
+        assertTrue(opened.getFirst().autoCommit.get());
+    }
+
+    @Test
+    void evictsIdleConnectionsDownToMinimum() throws Exception {
+        pool = newPool(1, 3, Duration.ofMillis(1));
+
+        Connection a = pool.borrow();
+        Connection b = pool.borrow();
+        Connection c = pool.borrow();
+        a.close();
+        b.close();
+        c.close();
+        Thread.sleep(5);
+
+        pool.maintain();
+        assertEquals(1, pool.size());
+        assertEquals(2, opened.stream().filter(conn -> conn.closed.get()).count());
+    }
+
+    @Test
+    void topsUpToMinimum() {
+        pool = newPool(2, 4, Duration.ofMinutes(5));
+
+        pool.maintain();
+        assertEquals(2, pool.size());
+        assertEquals(2, pool.idleCount());
+    }
+
+    @Test
+    void countsStatementCacheUse() throws SQLException {
+        var settings = new ConnectionPool.Settings(0, 1, Duration.ofMinutes(5), Duration.ofMillis(100), Duration.ZERO,
+                1, 1);
+        pool = new ConnectionPool(() -> new FakeConnection().proxy(), settings);
+
+        try (Connection conn = pool.borrow()) {
+            conn.prepareStatement("SELECT 1").close();
+            conn.prepareStatement("SELECT 1").close();
+            // only one statement fits, so this pushes out the first
+            conn.prepareStatement("SELECT 2").close();
+        }
+
+        assertEquals(1, pool.getStatementCacheHits());
+        assertEquals(2, pool.getStatementCacheMisses());
+        assertEquals(1, pool.getStatementCacheEvictions());
+    }
+
+    //-------------------------------------------------------------------------------------------------------------
+    // Helper Functions
+    //-------------------------------------------------------------------------------------------------------------
+
+    private ConnectionPool newPool(int min, int max, Duration idleTimeout) {
+        return newPool(min, max, idleTimeout, Duration.ofMillis(100));
+    }
+
+    private ConnectionPool newPool(int min, int max, Duration idleTimeout, Duration borrowTimeout) {
+        var settings = new ConnectionPool.Settings(min, max, idleTimeout, borrowTimeout, Duration.ZERO, 1, 0);
+        return new ConnectionPool(() -> {
+            FakeConnection fake = new FakeConnection();
+            synchronized (opened) {
+                opened.add(fake);
+            }
+            return fake.proxy();
+        }, settings);
+    }
+
+    /**
+     * statement that does nothing, for exercising the statement cache
+     */
+    private static PreparedStatement fakeStatement() {
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "isClosed" -> false;
+                    default -> null;
+                });
+    }
+
+    private static class FakeConnection {
+        final AtomicBoolean closed = new AtomicBoolean();
+        final AtomicBoolean valid = new AtomicBoolean(true);
+        final AtomicBoolean autoCommit = new AtomicBoolean(true);
+        final AtomicBoolean rolledBack = new AtomicBoolean();
+
+        Connection proxy() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, (proxy, method, args) -> switch (method.getName()) {
+                        case "close" -> {
+                            closed.set(true);
+                            yield null;
+                        }
+                        case "isClosed" -> closed.get();
+                        case "isValid" -> valid.get();
+                        case "getAutoCommit" -> autoCommit.get();
+                        case "setAutoCommit" -> {
+                            autoCommit.set((Boolean) args[0]);
+                            yield null;
+                        }
+                        case "rollback" -> {
+                            rolledBack.set(true);
+                            yield null;
+                        }
+                        case "prepareStatement" -> fakeStatement();
+                        default -> null;
+                    });
+        }
+    }
+}
@@ -2,17 +2,27 @@ package dataaccess;
 
 // import data access exception
 import chess.ChessGame;
+import chess.ChessGameCodec;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
 
 // import model classes
 import model.GameData;
+import model.ListGameData;
 
 // import test attributes
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 
 //import javax.xml.crypto.Data;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -24,6 +34,9 @@ class GameDAOTest {
 
         if (gDAOclass.equals(MemoryGameDAO.class)) {
             db = new MemoryGameDAO();
+        } else if (gDAOclass.equals(WriteBehindGameDAO.class)) {
+            // no background flush, so tests don't leave threads behind
+            db = new WriteBehindGameDAO(new MySqlGameDAO(), WriteBehindGameDAO.DEFAULT_MAX_RESIDENT, Duration.ZERO);
         } else {
             db = new MySqlGameDAO(); // placeholder for when we add the MySqlDatabase
         }
@@ -33,7 +46,7 @@ class GameDAOTest {
     }
 
     @ParameterizedTest
-    @ValueSource(classes = {MySqlGameDAO.class, MemoryGameDAO.class})
+    @ValueSource(classes = {MySqlGameDAO.class, MemoryGameDAO.class, WriteBehindGameDAO.class})
     void addGame(Class<? extends GameDAO> dbClass) throws DataAccessException {
         GameDAO dataAccess = getGameDataAccess(dbClass);
 
@@ -43,7 +56,7 @@ class GameDAOTest {
     }
 
     @ParameterizedTest
-    @ValueSource(classes = {MySqlGameDAO.class, MemoryGameDAO.class})
+    @ValueSource(classes = {MySqlGameDAO.class, MemoryGameDAO.class, WriteBehindGameDAO.class})
     void doGetGame(Class<? extends GameDAO> dbClass) throws DataAccessException {
         GameDAO dataAccess = getGameDataAccess(dbClass);
 
@@ -58,7 +71,7 @@ class GameDAOTest {
     }
 
     @ParameterizedTest
-    @ValueSource(classes = {MySqlGameDAO.class, MemoryGameDAO.class})
+    @ValueSource(classes = {MySqlGameDAO.class, MemoryGameDAO.class, WriteBehindGameDAO.class})
     void noGetGame(Class<? extends GameDAO> dbClass) throws DataAccessException {
         GameDAO dataAccess = getGameDataAccess(dbClass);
 
@@ -71,7 +84,7 @@ class GameDAOTest {
     }
 
     @ParameterizedTest
-    @ValueSource(classes = {MySqlGameDAO.class, MemoryGameDAO.class})
+    @ValueSource(classes = {MySqlGameDAO.class, MemoryGameDAO.class, WriteBehindGameDAO.class})
     void listGames(Class<? extends GameDAO> dbClass) throws DataAccessException {
         GameDAO dataAccess = getGameDataAccess(dbClass);
 
@@ -94,7 +107,7 @@ class GameDAOTest {
     }
 
     @ParameterizedTest
-    @ValueSource(classes = {MySqlGameDAO.class, MemoryGameDAO.class})
+    @ValueSource(classes = {MySqlGameDAO.class, MemoryGameDAO.class, WriteBehindGameDAO.class})
     void deleteAllGames(Class<? extends GameDAO> dbClass) throws DataAccessException {
         GameDAO dataAccess = getGameDataAccess(dbClass);
 
@@ -113,7 +126,7 @@ class GameDAOTest {
     }
 
     @ParameterizedTest
-    @ValueSource(classes = {MySqlGameDAO.class, MemoryGameDAO.class})
+    @ValueSource(classes = {MySqlGameDAO.class, MemoryGameDAO.class, WriteBehindGameDAO.class})
     void doUpdateGameWhitePlayer(Class<? extends GameDAO> dbClass) throws DataAccessException {
         GameDAO dataAccess = getGameDataAccess(dbClass);
         var game1 = new GameData(1234, null, "black", "test", new ChessGame(), false);
@@ -132,7 +145,7 @@ class GameDAOTest {
     }
 
     @ParameterizedTest
-    @ValueSource(classes = {MySqlGameDAO.class, MemoryGameDAO.class})
+    @ValueSource(classes = {MySqlGameDAO.class, MemoryGameDAO.class, WriteBehindGameDAO.class})
     void doUpdateGameBlackPlayer(Class<? extends GameDAO> dbClass) throws DataAccessException {
         GameDAO dataAccess = getGameDataAccess(dbClass);
         var game1 = new GameData(1234, "white", null, "test", new ChessGame(), false);
@@ -148,4 +161,172 @@ class GameDAOTest {
         dataAccess.deleteAllGames();
     }
 
+    @ParameterizedTest
+    @ValueSource(classes = {MySqlGameDAO.class, MemoryGameDAO.class, WriteBehindGameDAO.class})
+    void updateGameKeepsMoves(Class<? extends GameDAO> dbClass) throws DataAccessException, InvalidMoveException {
+        GameDAO dataAccess = getGameDataAccess(dbClass);
+        int newID = dataAccess.addGame(new GameData(1, "white", "black", "test", new ChessGame(), false));
+
+        // more plies than a snapshot interval, so the game has to be rebuilt from a snapshot and its moves
+        ChessGame game = dataAccess.getGame(newID).game();
+        for (ChessMove move : shuffleThenOpen(20)) {
+            game.makeMove(move);
+            dataAccess.updateGame(newID, game);
+        }
+
+        ChessGame actual = dataAccess.getGame(newID).game();
+        assertEquals(game, actual);
+        assertEquals(20, actual.getPly());
+        dataAccess.deleteAllGames();
+    }
+
+    @ParameterizedTest
+    @ValueSource(classes = {MySqlGameDAO.class, MemoryGameDAO.class, WriteBehindGameDAO.class})
+    void listGameSummariesPages(Class<? extends GameDAO> dbClass) throws DataAccessException {
+        GameDAO dataAccess = getGameDataAccess(dbClass);
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            ids.add(dataAccess.addGame(new GameData(i, null, null, "game" + i, new ChessGame(), false)));
+        }
+        dataAccess.updateGameWhitePlayer(ids.get(0), "white");
+
+        List<ListGameData> first = dataAccess.listGameSummaries(0, 2);
+        assertEquals(List.of(new ListGameData(ids.get(0), "white", null, "game1"),
+                new ListGameData(ids.get(1), null, null, "game2")), first);
+
+        // the next page starts after the last gameID of the one before
+        List<ListGameData> rest = dataAccess.listGameSummaries(first.get(1).gameID(), 0);
+        assertEquals(3, rest.size());
+        assertEquals(ids.get(2), rest.get(0).gameID());
+        assertEquals(ids.get(4), rest.get(2).gameID());
+
+        assertTrue(dataAccess.listGameSummaries(ids.get(4), 10).isEmpty());
+        dataAccess.deleteAllGames();
+    }
+
+    @ParameterizedTest
+    @ValueSource(classes = {MySqlGameDAO.class, WriteBehindGameDAO.class})
+    void getGameDecodesLazily(Class<? extends GameDAO> dbClass) throws DataAccessException {
+        GameDAO dataAccess = getGameDataAccess(dbClass);
+        int newID = dataAccess.addGame(new GameData(1, null, null, "test", new ChessGame(), false));
+        dataAccess.updateGameWhitePlayer(newID, "white");
+
+        GameData actual = dataAccess.getGame(newID);
+        assertEquals("white", actual.whiteUsername());
+        assertFalse(actual.isGameLoaded(), "reading the players shouldn't decode the game");
+        assertEquals(new ChessGame(), actual.game());
+        dataAccess.deleteAllGames();
+    }
+
+    @Test
+    void movesAreLoggedBetweenSnapshots() throws Exception {
+        MySqlGameDAO dataAccess = new MySqlGameDAO(4);
+        dataAccess.deleteAllGames();
+        int newID = dataAccess.addGame(new GameData(1, "white", "black", "test", new ChessGame(), false));
+
+        ChessGame game = dataAccess.getGame(newID).game();
+        for (ChessMove move : shuffleThenOpen(6)) {
+            game.makeMove(move);
+            dataAccess.updateGame(newID, game);
+        }
+        assertEquals(4, storedSnapshot(newID).getPly(), "the board should only be written every 4 plies");
+        assertEquals(2, countLoggedMoves(newID), "moves the snapshot includes should be dropped from the log");
+        assertEquals(game, dataAccess.getGame(newID).game());
+
+        dataAccess.updateGameOver(newID);
+        assertEquals(game, storedSnapshot(newID), "a finished game should be stored as a snapshot");
+        assertEquals(6, storedSnapshot(newID).getPly());
+        assertEquals(0, countLoggedMoves(newID));
+        dataAccess.deleteAllGames();
+    }
+
+    @Test
+    void listGamesReplaysLoggedMoves() throws Exception {
+        MySqlGameDAO dataAccess = new MySqlGameDAO(4);
+        dataAccess.deleteAllGames();
+        // games with no moves, moves only in the log, and moves both before and after a snapshot
+        Map<Integer, ChessGame> expected = new HashMap<>();
+        for (int plies : new int[]{0, 2, 6}) {
+            int newID = dataAccess.addGame(new GameData(1, "white", "black", "test", new ChessGame(), false));
+            ChessGame game = dataAccess.getGame(newID).game();
+            for (ChessMove move : plies == 0 ? List.<ChessMove>of() : shuffleThenOpen(plies)) {
+                game.makeMove(move);
+                dataAccess.updateGame(newID, game);
+            }
+            expected.put(newID, game);
+        }
+
+        Collection<GameData> listed = dataAccess.listGames();
+        assertEquals(3, listed.size());
+        for (GameData game : listed) {
+            assertFalse(game.isGameLoaded(), "listing shouldn't decode the games");
+            assertEquals(expected.get(game.gameID()), game.game());
+        }
+        dataAccess.deleteAllGames();
+    }
+
+    @Test
+    void gameSetUpByHandIsSnapshotted() throws Exception {
+        MySqlGameDAO dataAccess = new MySqlGameDAO(4);
+        dataAccess.deleteAllGames();
+        int newID = dataAccess.addGame(new GameData(1, "white", "black", "test", new ChessGame(), false));
+
+        ChessGame game = dataAccess.getGame(newID).game();
+        for (ChessMove move : shuffleThenOpen(2)) {
+            game.makeMove(move);
+            dataAccess.updateGame(newID, game);
+        }
+
+        ChessGame setUp = ChessGame.fromFen("4k3/8/8/8/8/8/8/4K2R b - - 0 1");
+        dataAccess.updateGame(newID, setUp);
+        assertEquals(0, countLoggedMoves(newID));
+        assertEquals(setUp, dataAccess.getGame(newID).game());
+        dataAccess.deleteAllGames();
+    }
+
+    //-------------------------------------------------------------------------------------------------------------
+    // Helper Functions
+    //-------------------------------------------------------------------------------------------------------------
+
+    /**
+     * knights out and back, then 1. e4 e5 for the last two plies (plies should be even)
+     */
+    private static List<ChessMove> shuffleThenOpen(int plies) {
+        ChessMove[] shuffle = {
+                move(1, 7, 3, 6), move(8, 7, 6, 6), move(3, 6, 1, 7), move(6, 6, 8, 7)
+        };
+        List<ChessMove> moves = new ArrayList<>();
+        for (int i = 0; i < plies - 2; i++) {
+            moves.add(shuffle[i % shuffle.length]);
+        }
+        moves.add(move(2, 5, 4, 5));
+        moves.add(move(7, 5, 5, 5));
+        return moves;
+    }
+
+    private static ChessMove move(int startRow, int startCol, int endRow, int endCol) {
+        return new ChessMove(new ChessPosition(startRow, startCol), new ChessPosition(endRow, endCol), null);
+    }
+
+    private static int countLoggedMoves(int gameID) throws Exception {
+        try (var conn = DatabaseManager.getConnection();
+             var ps = conn.prepareStatement("SELECT COUNT(*) FROM game_moves WHERE gameID=?")) {
+            ps.setInt(1, gameID);
+            try (var rs = ps.executeQuery()) {
+                rs.next();
+                return rs.getInt(1);
+            }
+        }
+    }
+
+    private static ChessGame storedSnapshot(int gameID) throws Exception {
+        try (var conn = DatabaseManager.getConnection();
+             var ps = conn.prepareStatement("SELECT game FROM games WHERE gameID=?")) {
+            ps.setInt(1, gameID);
+            try (var rs = ps.executeQuery()) {
+                rs.next();
+                return ChessGameCodec.decodeFromString(rs.getString("game"));
+            }
+        }
+    }
 }
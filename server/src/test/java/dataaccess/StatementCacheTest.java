@@ -0,0 +1,211 @@
+package dataaccess;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatementCacheTest {
+
+    // every physical statement the fake connection has prepared
+    private final List<FakeStatement> prepared = new ArrayList<>();
+    private final Connection physical = fakeConnection();
+    private final StatementCache.Stats stats = new StatementCache.Stats();
+
+    @Test
+    void reusesClosedStatements() throws SQLException {
+        StatementCache cache = new StatementCache(4, stats);
+
+        try (PreparedStatement ps = prepare(cache, "SELECT 1")) {
+            ps.setInt(1, 5);
+        }
+        try (PreparedStatement ps = prepare(cache, "SELECT 1")) {
+            ps.setInt(1, 6);
+        }
+
+        assertEquals(1, prepared.size());
+        assertEquals(2, prepared.getFirst().cleared);
+        assertFalse(prepared.getFirst().closed);
+        assertEquals(1, stats.hits());
+        assertEquals(1, stats.misses());
+    }
+
+    @Test
+    void pendingBatchIsClearedOnReturn() throws SQLException {
+        StatementCache cache = new StatementCache(4, stats);
+
+        // the borrower fails partway through building a batch, so it's given back without executeBatch
+        try (PreparedStatement ps = prepare(cache, "INSERT x")) {
+            ps.setInt(1, 1);
+            ps.addBatch();
+            ps.setInt(1, 2);
+            ps.addBatch();
+        }
+        try (PreparedStatement ps = prepare(cache, "INSERT x")) {
+            assertEquals(0, prepared.getFirst().batched, "the last borrower's rows shouldn't still be queued");
+            assertArrayEquals(new int[0], ps.executeBatch());
+        }
+        assertEquals(1, prepared.size());
+    }
+
+    @Test
+    void statementThatCantClearBatchIsEvicted() throws SQLException {
+        StatementCache cache = new StatementCache(4, stats);
+
+        PreparedStatement ps = prepare(cache, "INSERT x");
+        prepared.getFirst().failClearBatch = true;
+        ps.close();
+
+        assertTrue(prepared.getFirst().closed);
+        assertEquals(0, cache.size());
+        prepare(cache, "INSERT x").close();
+        assertEquals(2, prepared.size());
+    }
+
+    @Test
+    void keysIncludeGeneratedKeysFlag() throws SQLException {
+        StatementCache cache = new StatementCache(4, stats);
+
+        cache.prepare(physical, physical, "INSERT x", Statement.NO_GENERATED_KEYS).close();
+        cache.prepare(physical, physical, "INSERT x", Statement.RETURN_GENERATED_KEYS).close();
+        assertEquals(2, prepared.size());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsed() throws SQLException {
+        StatementCache cache = new StatementCache(2, stats);
+
+        prepare(cache, "A").close();
+        prepare(cache, "B").close();
+        prepare(cache, "A").close();
+        prepare(cache, "C").close();
+
+        assertEquals(2, cache.size());
+        assertTrue(prepared.get(1).closed, "B was least recently used and should be closed");
+        assertFalse(prepared.get(0).closed);
+        assertEquals(1, stats.evictions());
+
+        prepare(cache, "A").close();
+        assertEquals(3, prepared.size(), "A should still be cached");
+    }
+
+    @Test
+    void sameSqlOpenTwiceIsntShared() throws SQLException {
+        StatementCache cache = new StatementCache(4, stats);
+
+        PreparedStatement outer = prepare(cache, "SELECT 1");
+        PreparedStatement inner = prepare(cache, "SELECT 1");
+        assertEquals(2, prepared.size());
+
+        inner.close();
+        assertTrue(prepared.get(1).closed, "the uncached statement should really close");
+        outer.close();
+        assertFalse(prepared.get(0).closed);
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void closedHandleCantBeUsed() throws SQLException {
+        StatementCache cache = new StatementCache(4, stats);
+
+        PreparedStatement ps = prepare(cache, "SELECT 1");
+        ps.close();
+        assertTrue(ps.isClosed());
+        assertThrows(SQLException.class, ps::executeQuery);
+        ps.close();
+        assertEquals(1, prepared.getFirst().cleared, "closing twice should only give it back once");
+    }
+
+    @Test
+    void closeAllClosesStatements() throws SQLException {
+        StatementCache cache = new StatementCache(4, stats);
+
+        prepare(cache, "A").close();
+        PreparedStatement open = prepare(cache, "B");
+        cache.closeAll();
+
+        assertEquals(0, cache.size());
+        assertTrue(prepared.get(0).closed);
+        assertFalse(prepared.get(1).closed, "statements still in use close when they're given back");
+        open.close();
+        assertTrue(prepared.get(1).closed);
+    }
+
+    @Test
+    void disabledWhenSizeIsZero() throws SQLException {
+        StatementCache cache = new StatementCache(0, stats);
+
+        prepare(cache, "A").close();
+        prepare(cache, "A").close();
+        assertEquals(2, prepared.size());
+        assertTrue(prepared.get(0).closed);
+        assertEquals(0, cache.size());
+    }
+
+    //-------------------------------------------------------------------------------------------------------------
+    // Helper Functions
+    //-------------------------------------------------------------------------------------------------------------
+
+    private PreparedStatement prepare(StatementCache cache, String sql) throws SQLException {
+        return cache.prepare(physical, physical, sql, Statement.NO_GENERATED_KEYS);
+    }
+
+    private Connection fakeConnection() {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("prepareStatement")) {
+                        FakeStatement fake = new FakeStatement();
+                        prepared.add(fake);
+                        return fake.proxy();
+                    }
+                    return null;
+                });
+    }
+
+    private static class FakeStatement {
+        boolean closed;
+        int cleared;
+        int batched;
+        boolean failClearBatch;
+
+        PreparedStatement proxy() {
+            return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> switch (method.getName()) {
+                        case "close" -> {
+                            closed = true;
+                            yield null;
+                        }
+                        case "isClosed" -> closed;
+                        case "clearParameters" -> {
+                            cleared++;
+                            yield null;
+                        }
+                        case "addBatch" -> {
+                            batched++;
+                            yield null;
+                        }
+                        case "clearBatch" -> {
+                            if (failClearBatch) {
+                                throw new SQLException("connection is broken");
+                            }
+                            batched = 0;
+                            yield null;
+                        }
+                        case "executeBatch" -> {
+                            int[] counts = new int[batched];
+                            batched = 0;
+                            yield counts;
+                        }
+                        default -> null;
+                    });
+        }
+    }
+}
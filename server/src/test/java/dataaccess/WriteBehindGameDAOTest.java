@@ -0,0 +1,231 @@
+package dataaccess;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+import model.GameData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteBehindGameDAOTest {
+
+    private final AtomicInteger lookups = new AtomicInteger();
+    private final AtomicInteger batches = new AtomicInteger();
+    private final Map<Integer, ChessGame> saved = new HashMap<>();
+    private boolean failSaves;
+    // when set, the next lookup signals readDone after reading the game and then waits for release
+    private volatile CountDownLatch readDone;
+    private volatile CountDownLatch release;
+    private MemoryGameDAO backing;
+    private WriteBehindGameDAO games;
+
+    @BeforeEach
+    void setUp() throws DataAccessException {
+        // memory DAO that remembers what was saved and counts how often it was asked for a game
+        backing = new MemoryGameDAO() {
+            @Override
+            public GameData getGame(int gameID) {
+                lookups.incrementAndGet();
+                GameData game = super.getGame(gameID);
+                CountDownLatch done = readDone;
+                if (done != null) {
+                    readDone = null;
+                    done.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return game;
+            }
+
+            @Override
+            public void updateGameOver(int gameID) {
+                // the memory DAO doesn't record gameOver, so put back a finished copy (addGame replaces by ID)
+                GameData game = super.getGame(gameID);
+                super.addGame(new GameData(gameID, game.whiteUsername(), game.blackUsername(), game.gameName(),
+                        game.game(), true));
+            }
+
+            @Override
+            public void updateGame(int gameID, ChessGame game) {
+                saved.put(gameID, new ChessGame(game));
+            }
+
+            @Override
+            public void updateGames(Map<Integer, ChessGame> games) throws DataAccessException {
+                if (failSaves) {
+                    throw new DataAccessException("database is down");
+                }
+                batches.incrementAndGet();
+                super.updateGames(games);
+            }
+        };
+        games = new WriteBehindGameDAO(backing, 2, Duration.ZERO);
+        games.addGame(new GameData(1, "white", "black", "one", new ChessGame(), false));
+        games.addGame(new GameData(2, "white", "black", "two", new ChessGame(), false));
+        games.addGame(new GameData(3, "white", "black", "three", new ChessGame(), false));
+    }
+
+    @Test
+    void readsComeFromMemory() throws DataAccessException {
+        games.getGame(1);
+        games.getGame(1);
+        games.getGame(1);
+        assertEquals(1, lookups.get(), "a game should only be loaded once");
+    }
+
+    @Test
+    void movesAreSavedOnFlush() throws DataAccessException, InvalidMoveException {
+        ChessGame game = games.getGame(1).game();
+        game.makeMove(move(2, 5, 4, 5));
+        games.updateGame(1, game);
+
+        assertTrue(saved.isEmpty(), "moves shouldn't be saved until a flush");
+        assertEquals(game, games.getGame(1).game());
+        assertEquals(1, games.dirtyCount());
+
+        games.flush();
+        assertEquals(game, saved.get(1));
+        assertEquals(0, games.dirtyCount());
+        assertEquals(1, games.getFlushes());
+    }
+
+    @Test
+    void dirtyGamesAreBatched() throws DataAccessException, InvalidMoveException {
+        for (int id = 1; id <= 3; id++) {
+            ChessGame game = games.getGame(id).game();
+            game.makeMove(move(2, id, 3, id));
+            games.updateGame(id, game);
+        }
+        // a second move to the same game only leaves its latest state to save
+        ChessGame game = games.getGame(1).game();
+        game.makeMove(move(7, 1, 6, 1));
+        games.updateGame(1, game);
+
+        games.flush();
+        assertEquals(1, batches.get());
+        assertEquals(3, saved.size());
+        assertEquals(game, saved.get(1));
+        assertEquals(3, games.getGamesFlushed());
+    }
+
+    @Test
+    void gameOverSavesOnlyThatGameAndEvicts() throws DataAccessException, InvalidMoveException {
+        ChessGame game = games.getGame(2).game();
+        game.makeMove(move(2, 5, 4, 5));
+        games.updateGame(2, game);
+        ChessGame other = games.getGame(3).game();
+        other.makeMove(move(2, 4, 4, 4));
+        games.updateGame(3, other);
+
+        games.updateGameOver(2);
+        assertEquals(game, saved.get(2), "the final position should be saved when the game ends");
+        assertFalse(saved.containsKey(3), "other games should wait for the next flush");
+        assertEquals(0, batches.get());
+        assertEquals(1, games.dirtyCount());
+        assertEquals(1, games.residentCount());
+    }
+
+    @Test
+    void callersCantChangeResidentGames() throws DataAccessException, InvalidMoveException {
+        ChessGame game = games.getGame(1).game();
+        game.makeMove(move(2, 5, 4, 5));
+
+        assertEquals(new ChessGame(), games.getGame(1).game(), "a move that wasn't saved shouldn't show up");
+    }
+
+    @Test
+    void failedFlushKeepsGamesDirty() throws DataAccessException, InvalidMoveException {
+        ChessGame game = games.getGame(1).game();
+        game.makeMove(move(2, 5, 4, 5));
+        games.updateGame(1, game);
+
+        failSaves = true;
+        assertThrows(DataAccessException.class, () -> games.flush());
+        assertEquals(1, games.dirtyCount());
+
+        failSaves = false;
+        games.close();
+        assertEquals(game, saved.get(1));
+    }
+
+    @Test
+    void dirtyGamesArentEvicted() throws DataAccessException, InvalidMoveException {
+        ChessGame game = games.getGame(1).game();
+        game.makeMove(move(2, 5, 4, 5));
+        games.updateGame(1, game);
+        games.getGame(2);
+        games.getGame(3);
+
+        lookups.set(0);
+        assertEquals(game, games.getGame(1).game());
+        assertEquals(0, lookups.get(), "a game with unsaved moves must stay in memory");
+    }
+
+    @Test
+    void joinDuringLoadIsntLost() throws Exception {
+        games.addGame(new GameData(4, null, null, "four", new ChessGame(), false));
+
+        // a player joins after the game has been read but before the load is cached
+        Future<GameData> load = loadWhile(4, () -> games.updateGameWhitePlayer(4, "white"));
+
+        assertEquals("white", load.get(5, TimeUnit.SECONDS).whiteUsername());
+        assertEquals("white", games.getGame(4).whiteUsername(), "the cached copy shouldn't have the old player");
+    }
+
+    @Test
+    void gameEndingDuringLoadIsntCached() throws Exception {
+        // the game ends after it has been read but before the load is cached
+        Future<GameData> load = loadWhile(1, () -> games.updateGameOver(1));
+
+        assertTrue(load.get(5, TimeUnit.SECONDS).gameOver());
+        assertEquals(0, games.residentCount(), "a finished game shouldn't be put back in memory");
+        assertTrue(games.getGame(1).gameOver());
+    }
+
+    /**
+     * loads a game on another thread, running change after the load has read the wrapped DAO but before it
+     * has cached what it read
+     */
+    private Future<GameData> loadWhile(int gameID, Change change) throws Exception {
+        lookups.set(0);
+        CountDownLatch done = new CountDownLatch(1);
+        release = new CountDownLatch(1);
+        readDone = done;
+        ExecutorService loader = Executors.newSingleThreadExecutor();
+        try {
+            Future<GameData> load = loader.submit(() -> games.getGame(gameID));
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            change.run();
+            release.countDown();
+            load.get(5, TimeUnit.SECONDS);
+            assertEquals(2, lookups.get(), "the load should have read the game again after the change");
+            return load;
+        } finally {
+            loader.shutdownNow();
+        }
+    }
+
+    private interface Change {
+        void run() throws DataAccessException;
+    }
+
+    private static ChessMove move(int startRow, int startCol, int endRow, int endCol) {
+        return new ChessMove(new ChessPosition(startRow, startCol), new ChessPosition(endRow, endCol), null);
+    }
+}
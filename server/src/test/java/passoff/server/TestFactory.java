@@ -1,6 +1,7 @@
 package passoff.server;
 
 import com.google.gson.GsonBuilder;
+import serialization.GsonFactory;
 
 public class TestFactory {
 
@@ -23,8 +24,8 @@ public class TestFactory {
          * If you would like to change the way the web socket test cases serialize
          * or deserialize chess objects like ChessMove, you may add type adapters here.
          */
-        // builder.registerTypeAdapter(ChessMove.class, /*type adapter or json serializer */);
-        return new GsonBuilder();
+        // the server writes boards, pieces and moves with the compact chess adapters
+        return GsonFactory.builder();
     }
 
 }
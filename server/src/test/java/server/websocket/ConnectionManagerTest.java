@@ -0,0 +1,61 @@
+package server.websocket;
+
+import org.junit.jupiter.api.Test;
+import websocket.messages.NotificationMessage;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConnectionManagerTest {
+
+    private final ConnectionManager connections = new ConnectionManager();
+
+    @Test
+    void broadcastsOnlyReachTheGame() throws IOException {
+        FakeSession white = new FakeSession();
+        FakeSession black = new FakeSession();
+        FakeSession elsewhere = new FakeSession();
+        connections.add("white", 1, white.session);
+        connections.add("black", 1, black.session);
+        connections.add("other", 2, elsewhere.session);
+
+        connections.broadcastAll(1, new NotificationMessage("check"));
+        connections.broadcastExcept(1, "white", new NotificationMessage("moved"));
+
+        assertEquals(1, white.sent.size());
+        assertEquals(2, black.sent.size());
+        assertTrue(elsewhere.sent.isEmpty());
+    }
+
+    @Test
+    void userOnlyHearsTheirLatestGame() throws IOException {
+        FakeSession session = new FakeSession();
+        connections.add("user", 1, session.session);
+        connections.add("user", 2, session.session);
+
+        connections.broadcastAll(1, new NotificationMessage("old game"));
+        assertTrue(session.sent.isEmpty());
+        assertEquals(0, connections.connectionCount(1));
+        assertEquals(1, connections.connectionCount(2));
+
+        connections.remove("user");
+        assertEquals(0, connections.connectionCount(2));
+        assertEquals(0, connections.connectionCount());
+    }
+
+    @Test
+    void closedSessionsAreDroppedFromTheirGame() throws IOException {
+        FakeSession open = new FakeSession();
+        FakeSession closed = new FakeSession();
+        connections.add("open", 1, open.session);
+        connections.add("closed", 1, closed.session);
+        closed.open = false;
+
+        connections.broadcastAll(1, new NotificationMessage("hello"));
+        assertEquals(1, open.sent.size());
+        assertTrue(closed.sent.isEmpty());
+        assertEquals(1, connections.connectionCount(1));
+        assertEquals(1, connections.connectionCount());
+    }
+}
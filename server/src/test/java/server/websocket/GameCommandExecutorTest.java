@@ -0,0 +1,103 @@
+package server.websocket;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameCommandExecutorTest {
+
+    private final ExecutorService pool = Executors.newFixedThreadPool(4);
+    private final GameCommandExecutor executor = new GameCommandExecutor(pool);
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void commandsForOneGameRunInOrder() throws InterruptedException {
+        List<Integer> ran = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(1);
+        int commands = GameCommandExecutor.BATCH_SIZE * 20;
+        for (int i = 0; i < commands; i++) {
+            int n = i;
+            executor.submit(1, () -> ran.add(n));
+        }
+        executor.submit(1, done::countDown);
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < commands; i++) {
+            assertEquals(i, ran.get(i));
+        }
+    }
+
+    @Test
+    void commandsForOneGameNeverOverlap() throws InterruptedException {
+        int[] counter = {0};
+        CountDownLatch done = new CountDownLatch(1000);
+        // unsynchronized read-modify-write, which only adds up if the commands run one at a time
+        for (int i = 0; i < 1000; i++) {
+            pool.execute(() -> executor.submit(7, () -> {
+                counter[0]++;
+                done.countDown();
+            }));
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        CountDownLatch last = new CountDownLatch(1);
+        executor.submit(7, last::countDown);
+        assertTrue(last.await(5, TimeUnit.SECONDS));
+        assertEquals(1000, counter[0]);
+    }
+
+    @Test
+    void differentGamesRunInParallel() throws InterruptedException {
+        CountDownLatch otherGameRan = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        executor.submit(1, () -> {
+            try {
+                // only finishes if game 2's command gets to run while this one is still going
+                assertTrue(otherGameRan.await(5, TimeUnit.SECONDS));
+                done.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        executor.submit(2, otherGameRan::countDown);
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void failedCommandDoesntStopTheGame() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        executor.submit(3, () -> {
+            throw new IllegalStateException("bad command");
+        });
+        executor.submit(3, done::countDown);
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void idleMailboxesAreDropped() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        executor.submit(4, done::countDown);
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (executor.activeGames() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(0, executor.activeGames());
+    }
+}
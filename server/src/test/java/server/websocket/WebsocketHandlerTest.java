@@ -0,0 +1,71 @@
+package server.websocket;
+
+import chess.ChessGame;
+import dataaccess.*;
+import model.AuthData;
+import model.GameData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import serialization.Serializer;
+import service.GameService;
+import service.UserService;
+import websocket.commands.UserGameCommand;
+import websocket.messages.ErrorMessage;
+import websocket.messages.ServerMessage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WebsocketHandlerTest {
+
+    private WebsocketHandler handler;
+    private int gameID;
+
+    @BeforeEach
+    void setUp() throws DataAccessException {
+        AuthDAO authDB = new MemoryAuthDAO();
+        authDB.addAuth(new AuthData("white-token", "white"));
+        authDB.addAuth(new AuthData("black-token", "black"));
+        // the memory game DAO doesn't record gameOver, so this needs the real one
+        GameDAO gameDB = new MySqlGameDAO();
+        gameDB.deleteAllGames();
+        gameID = gameDB.addGame(new GameData(0, null, null, "game", new ChessGame(), false));
+        gameDB.updateGameWhitePlayer(gameID, "white");
+        gameDB.updateGameBlackPlayer(gameID, "black");
+
+        // run each command on the calling thread so the test can check what was sent straight away
+        handler = new WebsocketHandler(new UserService(authDB, new MemoryUserDAO()),
+                new GameService(authDB, gameDB), new GameCommandExecutor(Runnable::run));
+    }
+
+    @Test
+    void secondResignIsAnError() {
+        FakeSession white = new FakeSession();
+        FakeSession black = new FakeSession();
+        send(white, "white-token", UserGameCommand.CommandType.CONNECT);
+        send(black, "black-token", UserGameCommand.CommandType.CONNECT);
+
+        send(white, "white-token", UserGameCommand.CommandType.RESIGN);
+        assertEquals(ServerMessage.ServerMessageType.NOTIFICATION, lastMessage(black).getServerMessageType());
+
+        int blackReceived = black.sent.size();
+        send(white, "white-token", UserGameCommand.CommandType.RESIGN);
+        ServerMessage reply = lastMessage(white);
+        assertEquals(ServerMessage.ServerMessageType.ERROR, reply.getServerMessageType());
+        assertTrue(Serializer.fromJson(white.sent.getLast(), ErrorMessage.class).getErrorMessage()
+                .contains("finished game"));
+        assertEquals(blackReceived, black.sent.size(), "nobody else should hear about a second resign");
+
+        // the other player can't resign from the finished game either
+        send(black, "black-token", UserGameCommand.CommandType.RESIGN);
+        assertEquals(ServerMessage.ServerMessageType.ERROR, lastMessage(black).getServerMessageType());
+    }
+
+    private void send(FakeSession session, String authToken, UserGameCommand.CommandType type) {
+        handler.onMessage(session.session, Serializer.toJson(new UserGameCommand(type, authToken, gameID)));
+    }
+
+    private static ServerMessage lastMessage(FakeSession session) {
+        assertFalse(session.sent.isEmpty(), "nothing was sent");
+        return Serializer.fromJson(session.sent.getLast(), ServerMessage.class);
+    }
+}
@@ -0,0 +1,63 @@
+package service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrencyLimiterTest {
+
+    @Test
+    void neverLetsMoreThanLimitIn() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter("test", 2);
+        AtomicInteger inside = new AtomicInteger();
+        AtomicInteger mostInside = new AtomicInteger();
+        CountDownLatch go = new CountDownLatch(1);
+
+        List<Future<Integer>> calls = new ArrayList<>();
+        try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 20; i++) {
+                int n = i;
+                calls.add(callers.submit(() -> {
+                    go.await();
+                    return limiter.call(() -> {
+                        mostInside.accumulateAndGet(inside.incrementAndGet(), Math::max);
+                        try {
+                            Thread.sleep(5);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        inside.decrementAndGet();
+                        return n;
+                    });
+                }));
+            }
+            go.countDown();
+            for (int i = 0; i < calls.size(); i++) {
+                assertEquals(i, calls.get(i).get(5, TimeUnit.SECONDS));
+            }
+        }
+
+        assertEquals(2, mostInside.get());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void releasesWhenWorkThrows() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter("test", 1);
+        assertThrows(IllegalStateException.class, () -> limiter.call(() -> {
+            throw new IllegalStateException("boom");
+        }));
+        assertEquals(0, limiter.getInFlight());
+        assertEquals("ok", limiter.call(() -> "ok"));
+        assertThrows(IllegalArgumentException.class, () -> new ConcurrencyLimiter("test", 0));
+    }
+}
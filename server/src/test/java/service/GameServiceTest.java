@@ -77,6 +77,28 @@ public class GameServiceTest {
         assertThrows(UnauthorizedException.class, () -> setup.gameService.listGames(""));
     }
 
+    @ParameterizedTest
+    @MethodSource("providedClasses")
+    public void listGamesPagesAreBounded(Class<? extends AuthDAO> authDaoClassName,
+                                         Class<? extends GameDAO> gameDaoClassName,
+                                         Class<? extends UserDAO> userDaoClassName)
+            throws UnauthorizedException, DataAccessException, BadRequestException, AlreadyTakenException {
+
+        GameServiceTestUtil setup = initializeTest(authDaoClassName, gameDaoClassName, userDaoClassName);
+
+        for (int i = 0; i < GameService.MAX_PAGE_SIZE + 1; i++) {
+            setup.gameDB.addGame(new GameData(i + 1, null, null, "game" + i, new ChessGame(), false));
+        }
+
+        RegisterRequest request = new RegisterRequest("kk", "1234", ".com");
+        String authToken = setup.userService.registerUser(request).authToken();
+
+        // no limit gets the default page, and a huge one is cut down to the max
+        assertEquals(GameService.DEFAULT_PAGE_SIZE, setup.gameService.listGames(authToken, 0, 0).size());
+        assertEquals(GameService.MAX_PAGE_SIZE, setup.gameService.listGames(authToken, 0, 100000).size());
+        assertEquals(3, setup.gameService.listGames(authToken, 0, 3).size());
+    }
+
     @ParameterizedTest
     @MethodSource("providedClasses")
     public void doCreateGame(Class<? extends AuthDAO> authDaoClassName,
@@ -1,7 +1,7 @@
 package chess;
 
 import java.util.Arrays;
-import java.util.Objects;
+import java.util.SplittableRandom;
 
 /**
  * A chessboard that can hold and rearrange chess pieces.
@@ -10,7 +10,37 @@ import java.util.Objects;
  * signature of the existing methods.
  */
 public class ChessBoard {
-    private ChessPiece[][] squares = new ChessPiece[8][8];
+
+    // one bitboard per color/piece type, indexed by pieceIndex(color, type); bit n is square n (a1 = 0, h8 = 63)
+    private final long[] pieceBoards = new long[12];
+    // occupancy masks for each color, indexed by TeamColor ordinal
+    private final long[] colorBoards = new long[2];
+    private long occupied;
+    // Zobrist hash of the piece placement, kept up to date as pieces are added and removed
+    private long zobristKey;
+
+    // shared immutable piece instances so getPiece never has to allocate
+    private static final ChessPiece[] PIECES = new ChessPiece[12];
+    // random key for every piece on every square, XORed together to make a position's Zobrist hash
+    private static final long[][] ZOBRIST_KEYS = new long[12][64];
+    // FEN letter for each piece bitboard index: white pieces upper case, black lower case
+    private static final String FEN_PIECES = "KQBNRPkqbnrp";
+
+    static {
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            for (ChessPiece.PieceType type : ChessPiece.PieceType.values()) {
+                PIECES[pieceIndex(color, type)] = new ChessPiece(color, type);
+            }
+        }
+
+        // fixed seed so keys (and anything stored by key) stay the same across runs
+        SplittableRandom random = new SplittableRandom(0x5EED_CE55L);
+        for (long[] pieceKeys : ZOBRIST_KEYS) {
+            for (int square = 0; square < 64; square++) {
+                pieceKeys[square] = random.nextLong();
+            }
+        }
+    }
 
     /**
      * Class Constructor
@@ -26,16 +56,10 @@ public class ChessBoard {
      * @param og board that we're making a copy of
      */
     public ChessBoard(ChessBoard og) {
-        this.squares = new ChessPiece[8][8];
-        for (int i = 1; i < 9; i++) {
-            for (int j = 1; j < 9; j++) {
-                ChessPosition checkPosition = new ChessPosition(i, j);
-                ChessPiece checkPiece = og.getPiece(checkPosition);
-                if (checkPiece != null) {
-                    addPiece(checkPosition, checkPiece);
-                }
-            }
-        }
+        System.arraycopy(og.pieceBoards, 0, pieceBoards, 0, pieceBoards.length);
+        System.arraycopy(og.colorBoards, 0, colorBoards, 0, colorBoards.length);
+        occupied = og.occupied;
+        zobristKey = og.zobristKey;
     }
 
     /**
@@ -43,9 +67,14 @@ public class ChessBoard {
      *
      * @param position where to add the piece to
      * @param piece    the piece to add
+     * @throws IllegalArgumentException if the position is off the board
      */
     public void addPiece(ChessPosition position, ChessPiece piece) {
-        squares[(position.getRow() - 1)][(position.getColumn() - 1)] = piece;
+        int square = squareIndex(position);
+        clearSquare(square);
+        if (piece != null) {
+            setSquare(square, pieceIndex(piece.getTeamColor(), piece.getPieceType()));
+        }
     }
 
     /**
@@ -54,9 +83,11 @@ public class ChessBoard {
      * @param position The position to get the piece from
      * @return Either the piece at the position, or null if no piece is at that
      * position
+     * @throws IllegalArgumentException if the position is off the board
      */
     public ChessPiece getPiece(ChessPosition position) {
-        return squares[(position.getRow()-1)][(position.getColumn()-1)];
+        int index = pieceIndexAt(squareIndex(position));
+        return index < 0 ? null : PIECES[index];
     }
 
     /**
@@ -67,79 +98,79 @@ public class ChessBoard {
 
         // white team pieces
         // rooks
-        ChessPosition position1 = new ChessPosition(1,1);
-        ChessPosition position2 = new ChessPosition(1,8);
+        ChessPosition position1 = ChessPosition.of(1,1);
+        ChessPosition position2 = ChessPosition.of(1,8);
         ChessPiece wRook = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK);
         addPiece(position1,wRook);
         addPiece(position2,wRook);
 
         // knights
-        ChessPosition position3 = new ChessPosition(1,2);
-        ChessPosition position4 = new ChessPosition(1,7);
+        ChessPosition position3 = ChessPosition.of(1,2);
+        ChessPosition position4 = ChessPosition.of(1,7);
         ChessPiece wKnight = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT);
         addPiece(position3,wKnight);
         addPiece(position4, wKnight);
 
         // bishops
-        ChessPosition position5 = new ChessPosition(1,3);
-        ChessPosition position6 = new ChessPosition(1,6);
+        ChessPosition position5 = ChessPosition.of(1,3);
+        ChessPosition position6 = ChessPosition.of(1,6);
         ChessPiece wBishop = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP);
         addPiece(position5,wBishop);
         addPiece(position6, wBishop);
 
         // queen
-        ChessPosition position7 = new ChessPosition(1,4);
+        ChessPosition position7 = ChessPosition.of(1,4);
         ChessPiece wQun = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN);
         addPiece(position7,wQun);
 
         // king
-        ChessPosition position8 = new ChessPosition(1,5);
+        ChessPosition position8 = ChessPosition.of(1,5);
         ChessPiece wKng = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING);
         addPiece(position8,wKng);
 
         // pawns
         ChessPiece wPawn = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN);
         for(int i = 1; i <= 8; i++) {
-            ChessPosition pawnPos = new ChessPosition(2,i);
+            ChessPosition pawnPos = ChessPosition.of(2,i);
             addPiece(pawnPos,wPawn);
         }
 
         // black team pieces
         // rooks
-        ChessPosition posB1 = new ChessPosition(8,1);
-        ChessPosition posB2 = new ChessPosition(8,8);
+        ChessPosition posB1 = ChessPosition.of(8,1);
+        ChessPosition posB2 = ChessPosition.of(8,8);
         ChessPiece bRook = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK);
         addPiece(posB1,bRook);
         addPiece(posB2,bRook);
 
         // knights
-        ChessPosition posB3 = new ChessPosition(8,2);
-        ChessPosition posB4 = new ChessPosition(8,7);
+        ChessPosition posB3 = ChessPosition.of(8,2);
+        ChessPosition posB4 = ChessPosition.of(8,7);
         ChessPiece bKnight = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT);
         addPiece(posB3,bKnight);
         addPiece(posB4, bKnight);
 
         // bishops
-        ChessPosition posB5 = new ChessPosition(8,3);
-        ChessPosition posB6 = new ChessPosition(8,6);
+        ChessPosition posB5 = ChessPosition.of(8,3);
+        ChessPosition posB6 = ChessPosition.of(8,6);
         ChessPiece bBishop = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP);
         addPiece(posB5,bBishop);
         addPiece(posB6, bBishop);
 
         // queen
-        ChessPosition posB7 = new ChessPosition(8,4);
+        ChessPosition posB7 = ChessPosition.of(8,4);
         ChessPiece bQun = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.QUEEN);
         addPiece(posB7,bQun);
 
         // king
-        ChessPosition posB8 = new ChessPosition(8,5);
+        ChessPosition posB8 = ChessPosition.of(8,5);
         ChessPiece bKng = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING);
         addPiece(posB8,bKng);
 
         // pawns
         ChessPiece bPawn = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN);
         for(int i = 1; i <= 8; i++) {
-            ChessPosition pawnPos = new ChessPosition(7,i);
+            ChessPosition pawnPos = ChessPosition.of(7,i);
             addPiece(pawnPos,bPawn);
         }
     }
@@ -150,12 +181,13 @@ public class ChessBoard {
             return false;
         }
         ChessBoard that = (ChessBoard) o;
-        return Objects.deepEquals(squares, that.squares);
+        // different keys always mean different boards, so only compare the bitboards when they match
+        return zobristKey == that.zobristKey && Arrays.equals(pieceBoards, that.pieceBoards);
     }
 
     @Override
     public int hashCode() {
-        return Arrays.deepHashCode(squares);
+        return Long.hashCode(zobristKey);
     }
 
     @Override
@@ -169,7 +201,8 @@ public class ChessBoard {
             sb.append('[');
             for (int j = 0; j < 8; j++) {
                 // get piece at position
-                ChessPiece piece = squares[i][j];
+                int index = pieceIndexAt(i * 8 + j);
+                ChessPiece piece = index < 0 ? null : PIECES[index];
 
                 // check if there's a piece there
                 if (piece == null) {
@@ -193,4 +226,454 @@ public class ChessBoard {
         return sb.toString();
     }
 
+    //------------------------------------------------------------------------------------------------
+    // Custom Methods
+    //------------------------------------------------------------------------------------------------
+
+    /**
+     *
+     * Loads a board from the piece placement field of a FEN string, e.g. "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR"
+     *
+     * @param placement FEN piece placement, with nothing before or after it
+     * @return board with those pieces on it
+     * @throws IllegalArgumentException if the placement is malformed or has a pawn on rank 1 or 8
+     */
+    public static ChessBoard fromFen(CharSequence placement) {
+        ChessBoard board = new ChessBoard();
+        if (board.readFen(placement, 0) != placement.length()) {
+            throw badFen(placement);
+        }
+        return board;
+    }
+
+    /**
+     *
+     * Writes the board as the piece placement field of a FEN string
+     *
+     * @return FEN piece placement
+     */
+    public String toFen() {
+        StringBuilder sb = new StringBuilder(72);
+        appendFen(sb);
+        return sb.toString();
+    }
+
+    /**
+     *
+     * gets the FEN letter for a piece
+     *
+     * @param index index of the piece's bitboard
+     * @return upper case letter for white pieces, lower case for black
+     */
+    public static char fenLetter(int index) {
+        return FEN_PIECES.charAt(index);
+    }
+
+    /**
+     *
+     * gets the piece bitboard index for a FEN letter
+     *
+     * @param letter FEN piece letter
+     * @return index into the 12 piece bitboards, or -1 if it isn't a piece letter
+     */
+    public static int pieceIndexForFen(char letter) {
+        return FEN_PIECES.indexOf(letter);
+    }
+
+    /**
+     *
+     * Makes a move on the board in place without checking if it's legal.
+     * The returned undo token packs everything needed to take the move back:
+     * bits 0-5 are the from square, 6-11 the to square, 12-15 the moved piece,
+     * 16-19 the piece left on the to square (differs on promotion) and 20-23 the
+     * captured piece plus one (0 when nothing was captured)
+     *
+     * @param move move to make on the board
+     * @return undo token to pass to unmakeMove
+     */
+    public int makeMove(ChessMove move) {
+        return makeMove(move.encode());
+    }
+
+    /**
+     *
+     * Makes an encoded move (see ChessMove.encode) on the board in place without checking if it's legal
+     *
+     * @param move encoded move to make on the board
+     * @return undo token to pass to unmakeMove
+     */
+    public int makeMove(int move) {
+        int from = ChessMove.fromSquare(move);
+        int to = ChessMove.toSquare(move);
+
+        int moved = pieceIndexAt(from);
+        int captured = pieceIndexAt(to);
+
+        // check if there is a promotion piece, if so the pawn turns into it on the end square
+        int placed = moved;
+        ChessPiece.PieceType promotion = ChessMove.promotionOf(move);
+        if (promotion != null) {
+            placed = (moved / 6) * 6 + promotion.ordinal();
+        }
+
+        if (captured >= 0) {
+            removePiece(to, captured);
+        }
+        removePiece(from, moved);
+        setSquare(to, placed);
+
+        return from | (to << 6) | (moved << 12) | (placed << 16) | ((captured + 1) << 20);
+    }
+
+    /**
+     *
+     * Takes back a move made with makeMove, restoring the moved piece and anything it captured
+     *
+     * @param undo undo token returned by makeMove
+     */
+    public void unmakeMove(int undo) {
+        int from = undo & 0x3F;
+        int to = (undo >>> 6) & 0x3F;
+        int moved = (undo >>> 12) & 0xF;
+        int placed = (undo >>> 16) & 0xF;
+        int captured = ((undo >>> 20) & 0xF) - 1;
+
+        removePiece(to, placed);
+        setSquare(from, moved);
+        if (captured >= 0) {
+            setSquare(to, captured);
+        }
+    }
+
+    /**
+     *
+     * Determines if any of a team's pieces attack the given square
+     *
+     * @param position square to check
+     * @param byColor team that might be attacking the square
+     * @return true if a piece of byColor attacks the square
+     * @throws IllegalArgumentException if the position is off the board
+     */
+    public boolean isSquareAttacked(ChessPosition position, ChessGame.TeamColor byColor) {
+        return isSquareAttacked(squareIndex(position), byColor);
+    }
+
+    /**
+     *
+     * Determines if any of a team's pieces attack the given square by working outward from it
+     * along pawn, knight, king and sliding patterns and stopping at the first attacker found
+     *
+     * @param square square index from 0 to 63
+     * @param byColor team that might be attacking the square
+     * @return true if a piece of byColor attacks the square
+     */
+    public boolean isSquareAttacked(int square, ChessGame.TeamColor byColor) {
+
+        // a pawn attacks this square exactly when a pawn of the other color on this square would attack it
+        int defender = byColor == ChessGame.TeamColor.WHITE ? 1 : 0;
+        if ((ChessPiece.PAWN_ATTACKS[defender][square] & getPieces(byColor, ChessPiece.PieceType.PAWN)) != 0) {
+            return true;
+        }
+
+        // knights and kings attack symmetrically, so check their target squares from here
+        if ((ChessPiece.KNIGHT_TARGETS[square] & getPieces(byColor, ChessPiece.PieceType.KNIGHT)) != 0
+                || (ChessPiece.KING_TARGETS[square] & getPieces(byColor, ChessPiece.PieceType.KING)) != 0) {
+            return true;
+        }
+
+        long queens = getPieces(byColor, ChessPiece.PieceType.QUEEN);
+        long straightSliders = getPieces(byColor, ChessPiece.PieceType.ROOK) | queens;
+        long diagonalSliders = getPieces(byColor, ChessPiece.PieceType.BISHOP) | queens;
+        return isRayAttacked(square, ChessPiece.FIRST_STRAIGHT, ChessPiece.FIRST_DIAGONAL, straightSliders)
+                || isRayAttacked(square, ChessPiece.FIRST_DIAGONAL, ChessPiece.DIRECTIONS.length, diagonalSliders);
+    }
+
+    /**
+     *
+     * Gets the 64-bit Zobrist hash of the piece placement. Equal boards always have
+     * equal keys, so it can be used to key position caches and detect repetitions
+     *
+     * @return Zobrist key of the board
+     */
+    public long getZobristKey() {
+        return zobristKey;
+    }
+
+    /**
+     *
+     * converts a position into a bitboard square index, checking that it's on the board
+     *
+     * @param position position to convert
+     * @return square index from 0 (a1) to 63 (h8)
+     * @throws IllegalArgumentException if the row or column isn't between 1 and 8
+     */
+    public static int squareIndex(ChessPosition position) {
+        int row = position.getRow();
+        int col = position.getColumn();
+        if (row < 1 || row > 8 || col < 1 || col > 8) {
+            throw new IllegalArgumentException("Position is off the board: " + position);
+        }
+        return squareIndex(row, col);
+    }
+
+    /**
+     *
+     * converts a 1-indexed row and column into a bitboard square index. The row and column aren't checked,
+     * so only use this for squares already known to be on the board
+     *
+     * @param row row of the square (1-8)
+     * @param col column of the square (1-8)
+     * @return square index from 0 (a1) to 63 (h8)
+     */
+    public static int squareIndex(int row, int col) {
+        return ((row - 1) << 3) | (col - 1);
+    }
+
+    /**
+     *
+     * gets the index of the bitboard that tracks a given color and piece type
+     *
+     * @param color team color of the piece
+     * @param type type of the piece
+     * @return index into the 12 piece bitboards
+     */
+    public static int pieceIndex(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return color.ordinal() * 6 + type.ordinal();
+    }
+
+    /**
+     *
+     * gets the shared piece instance for a bitboard index
+     *
+     * @param index index into the 12 piece bitboards
+     * @return the piece that bitboard tracks
+     */
+    public static ChessPiece pieceFor(int index) {
+        return PIECES[index];
+    }
+
+    /**
+     *
+     * finds which piece bitboard (if any) has a piece on the given square
+     *
+     * @param square square index from 0 to 63
+     * @return index of the piece bitboard, or -1 if the square is empty
+     */
+    public int pieceIndexAt(int square) {
+        long bit = 1L << square;
+        if ((occupied & bit) == 0) {
+            return -1;
+        }
+        // only search the bitboards of the color that's actually on the square
+        int start = (colorBoards[0] & bit) != 0 ? 0 : 6;
+        for (int i = start; i < start + 6; i++) {
+            if ((pieceBoards[i] & bit) != 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     *
+     * gets the bitboard of every square holding a given color and piece type
+     *
+     * @param color team color of the pieces
+     * @param type type of the pieces
+     * @return bitboard of the pieces' squares
+     */
+    public long getPieces(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return pieceBoards[pieceIndex(color, type)];
+    }
+
+    /**
+     *
+     * gets the bitboard of every square holding one of a team's pieces
+     *
+     * @param color team color to look up
+     * @return bitboard of the team's squares
+     */
+    public long getTeamPieces(ChessGame.TeamColor color) {
+        return colorBoards[color.ordinal()];
+    }
+
+    /**
+     * @return bitboard of every occupied square
+     */
+    public long getOccupied() {
+        return occupied;
+    }
+
+    /**
+     *
+     * walks outward from a square along the precomputed rays until a piece blocks the way
+     * and checks if that first piece is one of the given sliders
+     *
+     * @param square square index from 0 to 63
+     * @param firstDir first ray direction to walk (inclusive)
+     * @param lastDir last ray direction to walk (exclusive)
+     * @param sliders bitboard of pieces that attack along these directions
+     * @return true if the first piece hit in any direction is a slider
+     */
+    private boolean isRayAttacked(int square, int firstDir, int lastDir, long sliders) {
+        if (sliders == 0) {
+            return false;
+        }
+        for (int dir = firstDir; dir < lastDir; dir++) {
+            for (int target : ChessPiece.RAYS[square][dir]) {
+                long bit = 1L << target;
+                if ((occupied & bit) != 0) {
+                    if ((sliders & bit) != 0) {
+                        return true;
+                    }
+                    break;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     *
+     * puts a piece on a square by bitboard index, replacing anything already there
+     *
+     * @param square square index from 0 to 63
+     * @param index index of the piece bitboard to add the piece to
+     */
+    void placePiece(int square, int index) {
+        clearSquare(square);
+        setSquare(square, index);
+    }
+
+    /**
+     *
+     * scans a FEN piece placement straight into the board's bitboards, running from rank 8 down to rank 1
+     * and a file to h file, without copying or splitting the text
+     *
+     * @param fen text holding the placement
+     * @param start index the placement starts at
+     * @return index just past the placement (the end of the text or the first whitespace)
+     * @throws IllegalArgumentException if the placement is malformed or has a pawn on rank 1 or 8
+     */
+    int readFen(CharSequence fen, int start) {
+        int length = fen.length();
+        int row = 8;
+        int col = 1;
+        int i = start;
+        for (; i < length && !Character.isWhitespace(fen.charAt(i)); i++) {
+            char c = fen.charAt(i);
+            if (c == '/') {
+                // a rank has to be full before moving down to the next one
+                if (col != 9 || row == 1) {
+                    throw badFen(fen);
+                }
+                row--;
+                col = 1;
+            } else if (c >= '1' && c <= '8') {
+                col += c - '0';
+                if (col > 9) {
+                    throw badFen(fen);
+                }
+            } else {
+                int index = FEN_PIECES.indexOf(c);
+                if (index < 0 || col > 8) {
+                    throw badFen(fen);
+                }
+                // a pawn can't stand on the first or last rank (it would have been promoted), and move
+                // generation assumes it never does
+                if ((c == 'P' || c == 'p') && (row == 1 || row == 8)) {
+                    throw badFen(fen);
+                }
+                placePiece(squareIndex(row, col++), index);
+            }
+        }
+        if (row != 1 || col != 9) {
+            throw badFen(fen);
+        }
+        return i;
+    }
+
+    /**
+     *
+     * writes the board's FEN piece placement onto the end of a builder
+     *
+     * @param sb builder to write to
+     */
+    void appendFen(StringBuilder sb) {
+        for (int row = 8; row >= 1; row--) {
+            int empty = 0;
+            for (int col = 1; col <= 8; col++) {
+                int index = pieceIndexAt(squareIndex(row, col));
+                if (index < 0) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    sb.append((char) ('0' + empty));
+                    empty = 0;
+                }
+                sb.append(FEN_PIECES.charAt(index));
+            }
+            if (empty > 0) {
+                sb.append((char) ('0' + empty));
+            }
+            if (row > 1) {
+                sb.append('/');
+            }
+        }
+    }
+
+    /**
+     *
+     * makes the exception thrown for FEN text that can't be loaded
+     *
+     * @param fen the bad FEN
+     * @return exception to throw
+     */
+    static IllegalArgumentException badFen(CharSequence fen) {
+        return new IllegalArgumentException("Invalid FEN: " + fen);
+    }
+
+    /**
+     *
+     * removes whatever piece is on a square
+     *
+     * @param square square index from 0 to 63
+     */
+    private void clearSquare(int square) {
+        int index = pieceIndexAt(square);
+        if (index >= 0) {
+            removePiece(square, index);
+        }
+    }
+
+    /**
+     *
+     * removes a known piece from a square
+     *
+     * @param square square index from 0 to 63
+     * @param index index of the piece bitboard the piece is on
+     */
+    private void removePiece(int square, int index) {
+        long mask = ~(1L << square);
+        pieceBoards[index] &= mask;
+        colorBoards[index / 6] &= mask;
+        occupied &= mask;
+        zobristKey ^= ZOBRIST_KEYS[index][square];
+    }
+
+    /**
+     *
+     * puts a piece on an empty square
+     *
+     * @param square square index from 0 to 63
+     * @param index index of the piece bitboard to add the piece to
+     */
+    private void setSquare(int square, int index) {
+        long bit = 1L << square;
+        pieceBoards[index] |= bit;
+        colorBoards[index / 6] |= bit;
+        occupied |= bit;
+        zobristKey ^= ZOBRIST_KEYS[index][square];
+    }
 }
@@ -14,10 +14,57 @@ public class ChessGame {
     private ChessBoard gameBoard = new ChessBoard();
     private TeamColor turn = TeamColor.WHITE;
 
+    // mixed into the board's Zobrist key when it's black's turn so the side to move is part of the hash
+    private static final long BLACK_TO_MOVE_KEY = 0x9E3779B97F4A7C15L;
+
+    // legal moves for the side to move, computed once per position and reused until the position changes.
+    // legalMovesKey is the Zobrist key (with side to move) they were computed for, so any change to the
+    // board or turn, including through getBoard(), invalidates them
+    private transient IntMoveList legalMoves;
+    private transient long legalMovesKey;
+    private transient boolean legalMovesInCheck;
+
+    // number of moves made since the position was set up, and the encoded moves this object has made from
+    // ply historyStart onwards, so storage can append the newest moves instead of rewriting the whole board
+    private transient int ply;
+    private transient int historyStart;
+    private transient IntMoveList history;
+
     public ChessGame() {
         gameBoard.resetBoard();
     }
 
+    /**
+     *
+     * Copy constructor
+     *
+     * @param og game that we're making a copy of
+     */
+    public ChessGame(ChessGame og) {
+        gameBoard = new ChessBoard(og.gameBoard);
+        turn = og.turn;
+        ply = og.ply;
+        historyStart = og.historyStart;
+        if (og.history != null) {
+            history = new IntMoveList(og.history.size());
+            for (int i = 0; i < og.history.size(); i++) {
+                history.add(og.history.get(i));
+            }
+        }
+    }
+
+    /**
+     *
+     * Constructor for a game that takes ownership of an already set up board
+     *
+     * @param board board to play on
+     * @param turn team whose turn it is
+     */
+    private ChessGame(ChessBoard board, TeamColor turn) {
+        gameBoard = board;
+        this.turn = turn;
+    }
+
     /**
      * @return Which team's turn it is
      */
@@ -32,6 +79,8 @@ public class ChessGame {
      */
     public void setTeamTurn(TeamColor team) {
         turn = team;
+        // the position was set up by hand, so it can't be rebuilt from the moves made so far
+        restartPly(0);
     }
 
     /**
@@ -42,6 +91,16 @@ public class ChessGame {
         BLACK
     }
 
+    /**
+     * Enum identifying where a team stands at the start of its turn
+     */
+    public enum GameStatus {
+        NORMAL,
+        CHECK,
+        CHECKMATE,
+        STALEMATE
+    }
+
     /**
      * Gets a valid moves for a piece at the given location
      *
@@ -52,37 +111,37 @@ public class ChessGame {
     public Collection<ChessMove> validMoves(ChessPosition startPosition) {
 
         // check if there's a piece at startPosition
-        if (gameBoard.getPiece(startPosition) != null) {
-            // get piece at startPosition
-            ChessPiece startPiece = gameBoard.getPiece(startPosition);
+        ChessPiece startPiece = gameBoard.getPiece(startPosition);
+        if (startPiece != null) {
             // get color of startPiece
             TeamColor startClr = startPiece.getTeamColor();
+            int from = ChessBoard.squareIndex(startPosition.getRow(), startPosition.getColumn());
+
+            // the side to move's legal moves are cached, so just pick out this piece's
+            if (startClr == turn) {
+                IntMoveList teamMoves = legalMoves();
+                Collection<ChessMove> goodMoves = new ArrayList<>();
+                for (int i = 0; i < teamMoves.size(); i++) {
+                    int move = teamMoves.get(i);
+                    if (ChessMove.fromSquare(move) == from) {
+                        goodMoves.add(ChessMove.decode(move));
+                    }
+                }
+                return goodMoves;
+            }
 
-            // make a copy of the gameBoard
-            ChessBoard ogGameBoard = new ChessBoard(gameBoard);
-
-            // initialize set to hold currentTeam's valid moves
-            Collection<ChessMove> goodMoves = startPiece.pieceMoves(gameBoard, startPosition);
-
-            // initialize set to hold bad moves that need to be removed from good moves
-            Collection<ChessMove> badMoves = new ArrayList<>();
-
-            // iterate through each move to make sure they're valid
-            for (ChessMove move : goodMoves) {
-                // make the move
-                makeAnyMove(gameBoard, move);
+            // generate all the piece's moves into this thread's scratch list
+            IntMoveList pieceMoves = IntMoveList.scratch();
+            ChessPiece.generatePieceMoves(gameBoard, from, pieceMoves);
 
-                // check if making the move puts king in check
-                if (isInCheck(startClr)) {
-                    // if move puts kin gin check, add to badMove list
-                    badMoves.add(move);
+            // keep only the moves that don't leave the king in check
+            Collection<ChessMove> goodMoves = new ArrayList<>(pieceMoves.size());
+            for (int i = 0; i < pieceMoves.size(); i++) {
+                int move = pieceMoves.get(i);
+                if (isLegal(move, startClr)) {
+                    goodMoves.add(ChessMove.decode(move));
                 }
-
-                // reset gameBoard to way it was before the move was made
-                gameBoard = new ChessBoard(ogGameBoard);
             }
-            //remove all bad moves from good moves list
-            goodMoves.removeAll(badMoves);
             return goodMoves;
         } else {
             // if no piece is found at startPosition, return null
@@ -98,33 +157,33 @@ public class ChessGame {
      */
     public void makeMove(ChessMove move) throws InvalidMoveException {
 
-        //throw new RuntimeException("Not implemented");
+        // moves to or from off the board can't be valid
+        if (!isOnBoard(move.getStartPosition()) || !isOnBoard(move.getEndPosition())) {
+            throw new InvalidMoveException("Invalid move: " + move);
+        }
 
-        ChessPosition start = move.getStartPosition();
-        ChessPiece currentPiece = gameBoard.getPiece(start);
+        ChessPiece currentPiece = gameBoard.getPiece(move.getStartPosition());
         if (currentPiece != null) {
             TeamColor clr = currentPiece.getTeamColor();
 
-            ChessPosition end = move.getEndPosition();
-            //ChessPiece endPiece = gameBoard.getPiece(end);
-
             // make sure it's the turn of the person trying to make the move
             if (getTeamTurn() == clr) {
-                // if the attempted move is valid, make the move
-                if (validMoves(start).contains(move)) {
-
-                    // check if there is a promotion piece/ currentPiece = pawn
-                    if (move.getPromotionPiece() != null) {
-                        currentPiece = new ChessPiece(clr, move.getPromotionPiece());
-                    }
+                // if the attempted move is one of the cached legal moves, make the move
+                int encoded = move.encode();
+                if (legalMoves().contains(encoded)) {
 
-                    // add/move piece to end/ new position
-                    gameBoard.addPiece(end, currentPiece);
-                    // remove piece from start position
-                    gameBoard.addPiece(start, null);
+                    // move the piece (promoting it if needed) and capture anything at the end position
+                    gameBoard.makeMove(encoded);
 
                     // change whose turn it is after move is made
-                    setTeamTurn(getOpponentsColor(clr));
+                    turn = getOpponentsColor(clr);
+
+                    // remember the move so it can be saved on its own
+                    if (history == null) {
+                        history = new IntMoveList();
+                    }
+                    history.add(encoded);
+                    ply++;
 
                 } else {
                     throw new InvalidMoveException("Invalid move: " + move);
@@ -145,20 +204,11 @@ public class ChessGame {
      */
     public boolean isInCheck(TeamColor teamColor) {
 
-        // make king and find king's position and moves
-        //ChessPiece king = new ChessPiece(teamColor, ChessPiece.PieceType.KING);
-        ChessPosition kingPosition = findKing(teamColor);
-
-        // find all the opponent's possible moves
-        Collection<ChessMove> opponentMoves = findTeamMoves(getOpponentsColor(teamColor));
-
-        // check if kingPosition is in opponentMoves
-        for (ChessMove oMove : opponentMoves) {
-            if (kingPosition.equals(oMove.getEndPosition())) {
-                return true;
-            }
+        // answer from the cache if it's already been worked out for this position
+        if (teamColor == turn && legalMoves != null && legalMovesKey == getZobristKey()) {
+            return legalMovesInCheck;
         }
-        return false;
+        return isKingAttacked(teamColor);
     }
 
     /**
@@ -168,11 +218,7 @@ public class ChessGame {
      * @return True if the specified team is in checkmate
      */
     public boolean isInCheckmate(TeamColor teamColor) {
-
-        // See if king is in check
-        // See if any of the team/s pieces have valid moves
-        // if both are true then it's in checkmate
-        return isInCheck(teamColor) && findValidTeamMoves(teamColor).isEmpty();
+        return evaluateStatus(teamColor) == GameStatus.CHECKMATE;
     }
 
     /**
@@ -183,11 +229,33 @@ public class ChessGame {
      * @return True if the specified team is in stalemate, otherwise false
      */
     public boolean isInStalemate(TeamColor teamColor) {
+        return evaluateStatus(teamColor) == GameStatus.STALEMATE;
+    }
 
-        // See if king is NOT in check
-        // see if there are any valid moves the team has
-        // if king isn't in check and there aren't any valid moves, then stalemate
-        return !isInCheck(teamColor) && findValidTeamMoves(teamColor).isEmpty();
+    /**
+     * Works out whether a team is in check, checkmate or stalemate in a single pass:
+     * the king is looked at once and move generation stops at the first legal move
+     *
+     * @param teamColor which team to evaluate
+     * @return the team's status
+     */
+    public GameStatus evaluateStatus(TeamColor teamColor) {
+
+        boolean inCheck;
+        boolean canMove;
+        if (teamColor == turn && legalMoves != null && legalMovesKey == getZobristKey()) {
+            // everything is already known for the side to move
+            inCheck = legalMovesInCheck;
+            canMove = !legalMoves.isEmpty();
+        } else {
+            inCheck = isKingAttacked(teamColor);
+            canMove = hasValidMove(teamColor);
+        }
+
+        if (canMove) {
+            return inCheck ? GameStatus.CHECK : GameStatus.NORMAL;
+        }
+        return inCheck ? GameStatus.CHECKMATE : GameStatus.STALEMATE;
     }
 
     /**
@@ -197,6 +265,7 @@ public class ChessGame {
      */
     public void setBoard(ChessBoard board) {
         gameBoard = new ChessBoard(board);
+        restartPly(0);
     }
 
     /**
@@ -208,152 +277,201 @@ public class ChessGame {
         return gameBoard;
     }
 
-    //------------------------------------------------------------------------------------------------
-    // Custom Methods
-    //------------------------------------------------------------------------------------------------
 
     /**
+     * Loads a game from Forsyth-Edwards Notation. The placement is scanned straight into the
+     * board's bitboards without splitting or copying the text. Only the piece placement and side
+     * to move are used; castling, en passant and the move clocks are optional and ignored since
+     * this engine doesn't track them.
      *
-     * Finds the position of a team's king
-     *
-     * @param teamColor team to look for king
-     * @return position of king if found, otherwise [0][0] i.e. [1][1]
+     * @param fen position in FEN, e.g. "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1"
+     * @return game set up in that position
+     * @throws IllegalArgumentException if the placement or side to move is malformed, or a pawn is on rank 1 or 8
      */
-    private ChessPosition findKing(TeamColor teamColor) {
-
-        // iterate through each row of board
-        for (int i = 1; i < 9; i++) {
-
-            // iterate through each column of board
-            for (int j = 1; j < 9; j++) {
+    public static ChessGame fromFen(CharSequence fen) {
+        ChessBoard board = new ChessBoard();
+        int length = fen.length();
+        int i = 0;
+
+        // skip leading whitespace, then scan the placement straight into the board
+        while (i < length && Character.isWhitespace(fen.charAt(i))) {
+            i++;
+        }
+        i = board.readFen(fen, i);
 
-                // look at [row][col] on board
-                ChessPosition searchPosition = new ChessPosition(i, j);
+        // side to move defaults to white when the field is left off
+        while (i < length && Character.isWhitespace(fen.charAt(i))) {
+            i++;
+        }
+        TeamColor turn = TeamColor.WHITE;
+        if (i < length) {
+            char side = fen.charAt(i++);
+            if ((side != 'w' && side != 'b') || (i < length && !Character.isWhitespace(fen.charAt(i)))) {
+                throw ChessBoard.badFen(fen);
+            }
+            turn = side == 'b' ? TeamColor.BLACK : TeamColor.WHITE;
+        }
+        return new ChessGame(board, turn);
+    }
 
-                // get piece from that [row][col]
-                ChessPiece searchPiece = gameBoard.getPiece(searchPosition);
+    /**
+     * Writes this game in Forsyth-Edwards Notation. Castling and en passant are always "-" and the
+     * move clocks "0 1", since this engine doesn't track them.
+     *
+     * @return the position in FEN
+     */
+    public String toFen() {
+        StringBuilder sb = new StringBuilder(90);
+        gameBoard.appendFen(sb);
+        return sb.append(turn == TeamColor.WHITE ? " w - - 0 1" : " b - - 0 1").toString();
+    }
 
-                // check if there's actually a piece there
-                if (searchPiece != null) {
+    //------------------------------------------------------------------------------------------------
+    // Custom Methods
+    //------------------------------------------------------------------------------------------------
 
-                    // get piece's color and type
-                    TeamColor searchClr = searchPiece.getTeamColor();
-                    ChessPiece.PieceType searchType = searchPiece.getPieceType();
+    /**
+     *
+     * Gets how many moves (plies) have been made since the position was set up
+     *
+     * @return number of plies played
+     */
+    public int getPly() {
+        return ply;
+    }
 
-                    // check if the piece is a king and the right clr
-                    if (searchType == ChessPiece.PieceType.KING && searchClr == teamColor) {
-                        return searchPosition;
-                    }
-                }
-            }
+    /**
+     *
+     * Gets the moves made after a given ply, so they can be saved without the rest of the game
+     *
+     * @param fromPly ply the moves should follow on from
+     * @return encoded moves (see ChessMove.encode) for plies fromPly + 1 up to getPly(), or null if this
+     * game doesn't remember that far back
+     */
+    public int[] getMovesSince(int fromPly) {
+        if (fromPly < historyStart || fromPly > ply) {
+            return null;
         }
-        // dummy position to return if king isn't found (which should never happen)
-        // this should really throw an error but didn't know how to implement it
-        return new ChessPosition(1,1);
+        int[] moves = new int[ply - fromPly];
+        for (int i = 0; i < moves.length; i++) {
+            moves[i] = history.get(fromPly - historyStart + i);
+        }
+        return moves;
     }
 
     /**
      *
-     * function to find the positions of all a team's pieces on the board
+     * sets the ply count for a game loaded from storage and forgets any moves remembered before it
      *
-     * @param teamColor color of the team whose pieces we're looking for
-     * @return collection containing the positions of all the team's pieces on the board
+     * @param ply number of plies already played in the loaded position
      */
-    private Collection<ChessPosition> findTeamPositions(TeamColor teamColor) {
-        HashSet<ChessPosition> teamPositions = new HashSet<>();
-
-        // tracker to see if we've looked at all the team's pieces yet (doesn't work if team has lost pieces, but that's ok)
-        int k = 0;
-        // look at every row
-        for (int i = 1; i < 9; i++) {
-            // look at every column
-            for (int j = 1; j < 9; j++) {
-                // create new position
-                ChessPosition newPosition = new ChessPosition(i, j);
-                // get piece at newPosition
-                ChessPiece newPiece = gameBoard.getPiece(newPosition);
-                // if there actually is a piece there, and we haven't already found all the team's pieces
-                if (newPiece != null && k < 16) {
-                    // if the piece's color matches the team's color, add it to the collection and increase piece tracker
-                    if (newPiece.getTeamColor() == teamColor) {
-                        teamPositions.add(newPosition);
-                        k++;
-                    }
-                }
-            }
+    void restartPly(int ply) {
+        this.ply = ply;
+        historyStart = ply;
+        if (history != null) {
+            history.clear();
         }
-        // return collection of positions of all team's pieces
-        return teamPositions;
     }
 
     /**
      *
-     * Gets all the moves the opponent can make
-     * Don't need to check if they're valid moves
-     * because it doesn't matter if they put themselves in check
-     * when capturing current team's king because they will have already won
+     * checks if a team has at least one valid move, stopping at the first one found
      *
-     * @param teamColor team to get moves for
-     * @return collection of ChessMoves the team can make
+     * @param teamColor color of the team we want to check
+     * @return true if the team can make any valid move
      */
-    private Collection<ChessMove> findTeamMoves(TeamColor teamColor) {
-        // initialize collection to hold all the team's possible moves
-        HashSet<ChessMove> teamMoves = new HashSet<>();
-
-        // look at each position of the team's pieces
-        for (ChessPosition position : findTeamPositions(teamColor)) {
-            // get the team's piece at that position
-            ChessPiece teamPiece = gameBoard.getPiece(position);
-            // add all the moves that piece can possibly make
-            teamMoves.addAll(teamPiece.pieceMoves(gameBoard, position));
+    private boolean hasValidMove(TeamColor teamColor) {
+
+        // generate every move the team's pieces could make
+        IntMoveList teamMoves = IntMoveList.scratch();
+        ChessPiece.generateMoves(gameBoard, teamColor, teamMoves);
+
+        for (int i = 0; i < teamMoves.size(); i++) {
+            if (isLegal(teamMoves.get(i), teamColor)) {
+                return true;
+            }
         }
-        return teamMoves;
+        return false;
     }
 
     /**
      *
-     * finds all the valid moves a team can make
+     * tries an encoded move in place and checks that it doesn't leave the mover's king in check
      *
-     * @param teamColor color of the team we want to find the valid moves for
-     * @return collection of all valid moves the team can make
+     * @param move encoded move to try
+     * @param teamColor color of the team making the move
+     * @return true if the move is legal
      */
-    private Collection<ChessMove> findValidTeamMoves(TeamColor teamColor) {
+    private boolean isLegal(int move, TeamColor teamColor) {
+        int undo = gameBoard.makeMove(move);
+        boolean safe = !isKingAttacked(teamColor);
+        gameBoard.unmakeMove(undo);
+        return safe;
+    }
 
-        HashSet<ChessMove> validTeamMoves = new HashSet<>();
+    /**
+     *
+     * checks if a team's king is attacked by any of the opponent's pieces
+     *
+     * @param teamColor team whose king to look at
+     * @return true if the king is attacked, false if it's safe or there's no king on the board
+     */
+    private boolean isKingAttacked(TeamColor teamColor) {
 
-        // look at each position of the team's pieces
-        for (ChessPosition position : findTeamPositions(teamColor)) {
-            // add all the valid moves the piece at that location can make
-            validTeamMoves.addAll(validMoves(position));
+        // find king's square
+        long king = gameBoard.getPieces(teamColor, ChessPiece.PieceType.KING);
+        if (king == 0) {
+            // no king on the board means nothing can be in check
+            return false;
         }
-        return validTeamMoves;
+
+        // check if any of the opponent's pieces attack that square
+        return gameBoard.isSquareAttacked(Long.numberOfTrailingZeros(king), getOpponentsColor(teamColor));
     }
 
     /**
      *
-     * makes a move on a chessboard without checking if it's legal
+     * gets the legal moves for the side to move, generating them only if the position has
+     * changed since they were last worked out
      *
-     * @param board board to make the move on
-     * @param move move to make on the board
+     * @return cached legal moves for the side to move
      */
-    private void makeAnyMove(ChessBoard board, ChessMove move) {
-
-        ChessPosition start = move.getStartPosition();
-        ChessPiece currentPiece = board.getPiece(start);
-        TeamColor clr = currentPiece.getTeamColor();
+    private IntMoveList legalMoves() {
+        long key = getZobristKey();
+        if (legalMoves != null && legalMovesKey == key) {
+            return legalMoves;
+        }
 
-        ChessPosition end = move.getEndPosition();
-        //ChessPiece endPiece = board.getPiece(end);
+        if (legalMoves == null) {
+            legalMoves = new IntMoveList();
+        } else {
+            legalMoves.clear();
+        }
 
-        // check if there is a promotion piece/ currentPiece = pawn
-        if (move.getPromotionPiece() != null) {
-            currentPiece = new ChessPiece(clr, move.getPromotionPiece());
+        // generate every move the team's pieces could make and keep the legal ones
+        IntMoveList teamMoves = IntMoveList.scratch();
+        ChessPiece.generateMoves(gameBoard, turn, teamMoves);
+        for (int i = 0; i < teamMoves.size(); i++) {
+            int move = teamMoves.get(i);
+            if (isLegal(move, turn)) {
+                legalMoves.add(move);
+            }
         }
+        legalMovesInCheck = isKingAttacked(turn);
+        legalMovesKey = key;
+        return legalMoves;
+    }
 
-        // add/move piece to end/ new position
-        board.addPiece(end, currentPiece);
-        // remove piece from start position
-        board.addPiece(start, null);
+    /**
+     *
+     * checks if a position is on the board
+     *
+     * @param position position to check
+     * @return true if the row and column are both between 1 and 8
+     */
+    private static boolean isOnBoard(ChessPosition position) {
+        return position != null && position.getRow() >= 1 && position.getRow() <= 8
+                && position.getColumn() >= 1 && position.getColumn() <= 8;
     }
 
     /**
@@ -364,7 +482,7 @@ public class ChessGame {
      * @return color of opponent
      */
     public TeamColor getOpponentsColor(TeamColor clr) {
-        return TeamColor.values()[(clr.ordinal() + 1) % 2];
+        return clr == TeamColor.WHITE ? TeamColor.BLACK : TeamColor.WHITE;
     }
 
     @Override
@@ -376,8 +494,19 @@ public class ChessGame {
         return Objects.equals(gameBoard, chessGame.gameBoard) && turn == chessGame.turn;
     }
 
+    /**
+     *
+     * Gets the 64-bit Zobrist hash of the position, including whose turn it is
+     *
+     * @return Zobrist key of the board mixed with the side to move
+     */
+    public long getZobristKey() {
+        long key = gameBoard.getZobristKey();
+        return turn == TeamColor.BLACK ? key ^ BLACK_TO_MOVE_KEY : key;
+    }
+
     @Override
     public int hashCode() {
-        return Objects.hash(gameBoard, turn);
+        return Long.hashCode(getZobristKey());
     }
 }
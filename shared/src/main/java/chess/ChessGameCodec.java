@@ -0,0 +1,145 @@
+package chess;
+
+import java.util.Base64;
+
+/**
+ * Compact binary form of a ChessGame for storage and transport.
+ * <p>
+ * Version 2 layout (38 bytes):
+ * <ul>
+ *     <li>byte 0: format version</li>
+ *     <li>byte 1: state flags, bit 0 set when it's black's turn (other bits reserved, written as 0)</li>
+ *     <li>bytes 2-33: the 64 squares from a1 to h8, two per byte with the lower-numbered square in the
+ *     low nibble. Each nibble is 0 for an empty square, otherwise the piece's bitboard index plus one</li>
+ *     <li>bytes 34-37: number of plies played (ChessGame.getPly), big-endian</li>
+ * </ul>
+ * Version 1 is the same without the ply count (34 bytes) and still decodes, as a game at ply 0.
+ */
+public final class ChessGameCodec {
+
+    public static final byte VERSION = 2;
+    public static final int ENCODED_LENGTH = 38;
+
+    private static final byte VERSION_1 = 1;
+    private static final int VERSION_1_LENGTH = 34;
+
+    private static final int FLAG_BLACK_TO_MOVE = 1;
+    private static final int SQUARES_OFFSET = 2;
+    private static final int PLY_OFFSET = 34;
+
+    private ChessGameCodec() {
+    }
+
+    /**
+     * Encodes a game into its compact binary form
+     *
+     * @param game game to encode
+     * @return encoded game
+     */
+    public static byte[] encode(ChessGame game) {
+        byte[] bytes = new byte[ENCODED_LENGTH];
+        bytes[0] = VERSION;
+        bytes[1] = (byte) (game.getTeamTurn() == ChessGame.TeamColor.BLACK ? FLAG_BLACK_TO_MOVE : 0);
+
+        ChessBoard board = game.getBoard();
+        for (int square = 0; square < 64; square++) {
+            int nibble = board.pieceIndexAt(square) + 1;
+            bytes[SQUARES_OFFSET + (square >>> 1)] |= (byte) (nibble << ((square & 1) << 2));
+        }
+
+        int ply = game.getPly();
+        for (int i = 0; i < 4; i++) {
+            bytes[PLY_OFFSET + i] = (byte) (ply >>> (24 - (i << 3)));
+        }
+        return bytes;
+    }
+
+    /**
+     * Decodes a game from its compact binary form
+     *
+     * @param bytes encoded game
+     * @return the decoded game
+     * @throws IllegalArgumentException if the bytes aren't a game in a supported format
+     */
+    public static ChessGame decode(byte[] bytes) {
+        if (bytes == null || bytes.length < 1) {
+            throw new IllegalArgumentException("Encoded game is too short");
+        }
+        if (bytes[0] != VERSION && bytes[0] != VERSION_1) {
+            throw new IllegalArgumentException("Unsupported encoded game version " + bytes[0]);
+        }
+        if (bytes.length < (bytes[0] == VERSION ? ENCODED_LENGTH : VERSION_1_LENGTH)) {
+            throw new IllegalArgumentException("Encoded game is too short");
+        }
+
+        ChessBoard board = new ChessBoard();
+        for (int square = 0; square < 64; square++) {
+            int nibble = (bytes[SQUARES_OFFSET + (square >>> 1)] >>> ((square & 1) << 2)) & 0xF;
+            if (nibble > 12) {
+                throw new IllegalArgumentException("Bad piece " + nibble + " on square " + square);
+            }
+            if (nibble != 0) {
+                board.placePiece(square, nibble - 1);
+            }
+        }
+
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+        game.setTeamTurn((bytes[1] & FLAG_BLACK_TO_MOVE) != 0 ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE);
+
+        // version 1 didn't store the ply count, so those games start counting again from 0
+        game.restartPly(decodePly(bytes));
+        return game;
+    }
+
+    /**
+     * Reads just the ply count of an encoded game, without decoding the board
+     *
+     * @param bytes encoded game
+     * @return plies played, 0 for version 1
+     * @throws IllegalArgumentException if the bytes aren't a game in a supported format
+     */
+    public static int decodePly(byte[] bytes) {
+        if (bytes == null || bytes.length < 1) {
+            throw new IllegalArgumentException("Encoded game is too short");
+        }
+        if (bytes[0] == VERSION_1) {
+            return 0;
+        }
+        if (bytes[0] != VERSION) {
+            throw new IllegalArgumentException("Unsupported encoded game version " + bytes[0]);
+        }
+        if (bytes.length < ENCODED_LENGTH) {
+            throw new IllegalArgumentException("Encoded game is too short");
+        }
+        int ply = 0;
+        for (int i = 0; i < 4; i++) {
+            ply = (ply << 8) | (bytes[PLY_OFFSET + i] & 0xFF);
+        }
+        if (ply < 0) {
+            throw new IllegalArgumentException("Bad ply count " + ply);
+        }
+        return ply;
+    }
+
+    /**
+     * Encodes a game as Base64 text, for text columns and JSON messages
+     *
+     * @param game game to encode
+     * @return Base64 of the encoded game
+     */
+    public static String encodeToString(ChessGame game) {
+        return Base64.getEncoder().encodeToString(encode(game));
+    }
+
+    /**
+     * Decodes a game from Base64 text made by encodeToString
+     *
+     * @param encoded Base64 of the encoded game
+     * @return the decoded game
+     * @throws IllegalArgumentException if the text isn't a game in a supported format
+     */
+    public static ChessGame decodeFromString(String encoded) {
+        return decode(Base64.getDecoder().decode(encoded));
+    }
+}
@@ -14,6 +14,13 @@ public class ChessMove {
     private final ChessPosition endPosition;
     private final ChessPiece.PieceType promotionPiece;
 
+    // layout of the compact int form of a move: from square in bits 0-5, to square in bits 6-11,
+    // and promotion piece ordinal plus one in bits 12-14 (0 when there's no promotion)
+    private static final int SQUARE_MASK = 0x3F;
+    private static final int TO_SHIFT = 6;
+    private static final int PROMOTION_SHIFT = 12;
+    private static final ChessPiece.PieceType[] PIECE_TYPES = ChessPiece.PieceType.values();
+
     public ChessMove(ChessPosition startPosition, ChessPosition endPosition,
                      ChessPiece.PieceType promotionPiece) {
         this.startPosition = startPosition;
@@ -45,6 +52,65 @@ public class ChessMove {
         return promotionPiece;
     }
 
+    /**
+     * Packs this move into its compact int form (fits in 16 bits)
+     *
+     * @return encoded move
+     */
+    public int encode() {
+        return encode(ChessBoard.squareIndex(startPosition.getRow(), startPosition.getColumn()),
+                ChessBoard.squareIndex(endPosition.getRow(), endPosition.getColumn()), promotionPiece);
+    }
+
+    /**
+     * Packs a move into its compact int form (fits in 16 bits)
+     *
+     * @param from square index the piece moves from
+     * @param to square index the piece moves to
+     * @param promotion piece to promote to, or null
+     * @return encoded move
+     */
+    public static int encode(int from, int to, ChessPiece.PieceType promotion) {
+        int promotionBits = promotion == null ? 0 : promotion.ordinal() + 1;
+        return from | (to << TO_SHIFT) | (promotionBits << PROMOTION_SHIFT);
+    }
+
+    /**
+     * Unpacks an encoded move into a ChessMove using the shared ChessPosition instances
+     *
+     * @param move encoded move
+     * @return the move as a ChessMove
+     */
+    public static ChessMove decode(int move) {
+        return new ChessMove(ChessPosition.ofSquare(fromSquare(move)), ChessPosition.ofSquare(toSquare(move)),
+                promotionOf(move));
+    }
+
+    /**
+     * @param move encoded move
+     * @return square index the move starts from
+     */
+    public static int fromSquare(int move) {
+        return move & SQUARE_MASK;
+    }
+
+    /**
+     * @param move encoded move
+     * @return square index the move ends on
+     */
+    public static int toSquare(int move) {
+        return (move >>> TO_SHIFT) & SQUARE_MASK;
+    }
+
+    /**
+     * @param move encoded move
+     * @return piece the move promotes to, or null if it isn't a promotion
+     */
+    public static ChessPiece.PieceType promotionOf(int move) {
+        int promotionBits = move >>> PROMOTION_SHIFT;
+        return promotionBits == 0 ? null : PIECE_TYPES[promotionBits - 1];
+    }
+
     @Override
     public boolean equals(Object o) {
         if (o == null || getClass() != o.getClass()) {
@@ -59,7 +125,9 @@ public class ChessMove {
 
     @Override
     public int hashCode() {
-        return Objects.hash(startPosition, endPosition, promotionPiece);
+        int result = Objects.hashCode(startPosition);
+        result = 31 * result + Objects.hashCode(endPosition);
+        return 31 * result + (promotionPiece == null ? 0 : promotionPiece.ordinal() + 1);
     }
 
     @Override
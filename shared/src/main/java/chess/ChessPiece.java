@@ -13,6 +13,59 @@ public class ChessPiece {
     private final ChessGame.TeamColor pieceColor;
     private final PieceType type;
 
+    // ray directions as {row, col} steps, indexed so 0-3 are straight (rook) and 4-7 are diagonal (bishop)
+    static final int[][] DIRECTIONS = {
+            {0, 1}, {0, -1}, {1, 0}, {-1, 0},
+            {1, 1}, {1, -1}, {-1, 1}, {-1, -1}
+    };
+    static final int FIRST_STRAIGHT = 0;
+    static final int FIRST_DIAGONAL = 4;
+
+    // per-square bitboards of the squares a knight or king on that square can reach
+    static final long[] KNIGHT_TARGETS = new long[64];
+    static final long[] KING_TARGETS = new long[64];
+    // per-color, per-square bitboards of the squares a pawn on that square attacks
+    static final long[][] PAWN_ATTACKS = new long[2][64];
+    // per-square, per-direction lists of the squares along that ray, nearest first
+    static final int[][][] RAYS = new int[64][8][];
+
+    private static final PieceType[] PROMOTIONS = {PieceType.ROOK, PieceType.KNIGHT, PieceType.BISHOP, PieceType.QUEEN};
+
+    static {
+        int[][] knightSteps = {
+                {-2, -1}, {-2, 1}, {2, -1}, {2, 1},
+                {-1, -2}, {-1, 2}, {1, -2}, {1, 2}
+        };
+        for (int square = 0; square < 64; square++) {
+            int row = square >>> 3;
+            int col = square & 7;
+
+            for (int[] step : knightSteps) {
+                KNIGHT_TARGETS[square] |= bitAt(row + step[0], col + step[1]);
+            }
+
+            for (int dir = 0; dir < DIRECTIONS.length; dir++) {
+                int[] step = DIRECTIONS[dir];
+                // the king moves exactly one step in every ray direction
+                KING_TARGETS[square] |= bitAt(row + step[0], col + step[1]);
+
+                int length = 0;
+                int[] ray = new int[7];
+                int r = row + step[0];
+                int c = col + step[1];
+                while (r >= 0 && r < 8 && c >= 0 && c < 8) {
+                    ray[length++] = (r << 3) | c;
+                    r += step[0];
+                    c += step[1];
+                }
+                RAYS[square][dir] = Arrays.copyOf(ray, length);
+            }
+
+            PAWN_ATTACKS[ChessGame.TeamColor.WHITE.ordinal()][square] = bitAt(row + 1, col - 1) | bitAt(row + 1, col + 1);
+            PAWN_ATTACKS[ChessGame.TeamColor.BLACK.ordinal()][square] = bitAt(row - 1, col - 1) | bitAt(row - 1, col + 1);
+        }
+    }
+
     public ChessPiece(ChessGame.TeamColor pieceColor, ChessPiece.PieceType type) {
         this.pieceColor = pieceColor;
         this.type = type;
@@ -50,173 +103,153 @@ public class ChessPiece {
      * danger
      *
      * @return Collection of valid moves
+     * @throws IllegalArgumentException if myPosition is off the board
      */
     public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPosition) {
 
-        ChessPiece currentPiece = board.getPiece(myPosition);
-
-        HashSet<ChessMove> moves = new HashSet<>();
-
-        if (currentPiece.getPieceType() == PieceType.BISHOP) {
-            return bishopMoves(board, myPosition);
-        } else if (currentPiece.getPieceType() == PieceType.KING) {
-            return kingMoves(board, myPosition);
-        } else if (currentPiece.getPieceType() == PieceType.KNIGHT) {
-            return knightMoves(board, myPosition);
-        } else if (currentPiece.getPieceType() == PieceType.PAWN) {
-            return pawnMoves(board,myPosition);
-        } else if (currentPiece.getPieceType() == PieceType.QUEEN) {
-            return queenMoves(board, myPosition);
-        } else if (currentPiece.getPieceType() == PieceType.ROOK) {
-            return rookMoves(board, myPosition);
-        } else {
-            return moves;
+        // generate into this thread's scratch list, then hand back ChessMove objects
+        IntMoveList moves = IntMoveList.scratch();
+        generatePieceMoves(board, ChessBoard.squareIndex(myPosition), moves);
+
+        ArrayList<ChessMove> pieceMoves = new ArrayList<>(moves.size());
+        moves.decodeInto(pieceMoves);
+        return pieceMoves;
+    }
+
+    /**
+     * Generates every move a team's pieces can make as encoded moves (see ChessMove.encode)
+     * Does not take into account moves that are illegal due to leaving the king in
+     * danger
+     *
+     * @param board board the pieces are on
+     * @param color team to generate moves for
+     * @param moves list to add the moves to
+     */
+    public static void generateMoves(ChessBoard board, ChessGame.TeamColor color, IntMoveList moves) {
+        // walk the set bits of the team's occupancy bitboard
+        long pieces = board.getTeamPieces(color);
+        while (pieces != 0) {
+            generatePieceMoves(board, Long.numberOfTrailingZeros(pieces), moves);
+            pieces &= pieces - 1;
+        }
+    }
+
+    /**
+     * Generates every move the piece on a square can make as encoded moves (see ChessMove.encode)
+     * Does not take into account moves that are illegal due to leaving the king in
+     * danger
+     *
+     * @param board board the piece is on
+     * @param from square index of the piece
+     * @param moves list to add the moves to
+     */
+    public static void generatePieceMoves(ChessBoard board, int from, IntMoveList moves) {
+        int index = board.pieceIndexAt(from);
+        if (index < 0) {
+            return;
+        }
+        ChessPiece currentPiece = ChessBoard.pieceFor(index);
+        long own = board.getTeamPieces(currentPiece.pieceColor);
+
+        switch (currentPiece.type) {
+            case BISHOP -> bishopMoves(board, from, own, moves);
+            case KING -> kingMoves(from, own, moves);
+            case KNIGHT -> knightMoves(from, own, moves);
+            case PAWN -> pawnMoves(board, from, currentPiece.pieceColor, moves);
+            case QUEEN -> queenMoves(board, from, own, moves);
+            case ROOK -> rookMoves(board, from, own, moves);
         }
     }
 
     /**
      * Calculates all positions a bishop can move to
      * @param board ChessBoard object that tracks where pieces are and their team
-     * @param myPosition ChessPosition object that helps us find current piece
-     * @return HashSet of ChessPosition objects saying where bishop can move to
+     * @param from square index of the bishop
+     * @param own bitboard of the bishop's team
+     * @param moves list to add the bishop's encoded moves to
      */
-    private Collection<ChessMove> bishopMoves(ChessBoard board, ChessPosition myPosition) {
-
-        // create array of directions bishop can move in
-        int[][] directions = {
-                {1,1},  // top right diagonal
-                {1,-1}, // top left diagonal
-                {-1,1}, // bottom right diagonal
-                {-1,-1} // bottom left diagonal
-        };
-        // call getMoves and return result
-        return getMoves(board, myPosition, directions);
+    private static void bishopMoves(ChessBoard board, int from, long own, IntMoveList moves) {
+        addSlidingMoves(board, from, own, FIRST_DIAGONAL, DIRECTIONS.length, moves);
     }
 
     /**
      * Calculates all positions a king can move to
-     * @param board ChessBoard object that tracks where pieces are and their team
-     * @param myPosition ChessPosition object that helps us find current piece
-     * @return HashSet of ChessPosition objects saying where king can move to
+     * @param from square index of the king
+     * @param own bitboard of the king's team
+     * @param moves list to add the king's encoded moves to
      */
-    private Collection<ChessMove> kingMoves(ChessBoard board, ChessPosition myPosition) {
-
-        // Define all possible king moves
-        int[][] directions = {
-                {-1, -1}, {-1, 1}, {-1, 0}, {1, -1}, {1, 1},
-                {1, 0}, {0, -1}, {0, 1}
-        };
-        // call getMoves and return result
-        return getMoves(board, myPosition, directions);
+    private static void kingMoves(int from, long own, IntMoveList moves) {
+        addStepMoves(from, KING_TARGETS[from] & ~own, moves);
     }
 
     /**
      * Calculates all positions a knight can move to
-     * @param board ChessBoard object that tracks where pieces are and their team
-     * @param myPosition ChessPosition object that helps us find current piece
-     * @return HashSet of ChessPosition objects saying where knight can move to
+     * @param from square index of the knight
+     * @param own bitboard of the knight's team
+     * @param moves list to add the knight's encoded moves to
      */
-    private Collection<ChessMove> knightMoves(ChessBoard board, ChessPosition myPosition) {
-
-        // Define all possible knight moves
-        int[][] directions = {
-                {-2, -1}, {-2, 1}, {2, -1}, {2, 1},
-                {-1, -2}, {-1, 2}, {1, -2}, {1, 2}
-        };
-        // call getMoves and return result
-        return getMoves(board, myPosition, directions);
+    private static void knightMoves(int from, long own, IntMoveList moves) {
+        addStepMoves(from, KNIGHT_TARGETS[from] & ~own, moves);
     }
 
     /**
      * Calculates all positions a pawn can move to
      * @param board ChessBoard object that tracks where pieces are and their team
-     * @param myPosition ChessPosition object that helps us find current piece
-     * @return HashSet of ChessPosition objects saying where pawn can move to
+     * @param from square index of the pawn
+     * @param color team the pawn is on
+     * @param moves list to add the pawn's encoded moves to
      */
-    private Collection<ChessMove> pawnMoves(ChessBoard board, ChessPosition myPosition) {
-
-        // initialize set to hold all the possible moves the pawn can make
-        HashSet<ChessMove> moves = new HashSet<>();
-
-        // get the pawn we're looking at
-        ChessPiece currentPiece = board.getPiece(myPosition);
-
-        // get the starting row and col of the pawn's position
-        int startRow = myPosition.getRow();
-        int startCol = myPosition.getColumn();
-
-        // Determine movement direction, start row, and promotion row based on team color
-        int moveDirection;
-        int startRowForDoubleMove;
-        int promotionRow;
-
-        if (currentPiece.getTeamColor() == ChessGame.TeamColor.WHITE) { // if team is white
-            moveDirection = 1;
-            startRowForDoubleMove = 2;
-            promotionRow = 8;
-        } else { // if team is black
-            moveDirection = -1;
-            startRowForDoubleMove = 7;
-            promotionRow = 1;
-        }
+    private static void pawnMoves(ChessBoard board, int from, ChessGame.TeamColor color, IntMoveList moves) {
 
-        int newRow = startRow + moveDirection;
-        ChessPosition newPosition = new ChessPosition(newRow, startCol);
+        long occupied = board.getOccupied();
 
-        // look at forward moves of pawn
-        // check that there is nothing in front of the pawn
-        if (board.getPiece(newPosition) == null) {
-            moves.addAll(getPawnMoves(board, myPosition, newPosition, promotionRow, startRowForDoubleMove, moveDirection));
+        // Determine movement direction and start row based on team color
+        boolean white = color == ChessGame.TeamColor.WHITE;
+        int step = white ? 8 : -8;
+        int startRowForDoubleMove = white ? 1 : 6;
+
+        // look at forward moves of pawn, checking that there is nothing in front of the pawn
+        // (a pawn already on its last rank has nowhere to go, and the shift would wrap round the board)
+        int forward = from + step;
+        if (forward >= 0 && forward < 64 && (occupied & (1L << forward)) == 0) {
+            addPawnMove(from, forward, moves);
+
+            // Double forward move
+            int doubleForward = forward + step;
+            if ((from >>> 3) == startRowForDoubleMove && (occupied & (1L << doubleForward)) == 0) {
+                addPawnMove(from, doubleForward, moves);
+            }
         }
 
         // get capture moves of pawn
-        moves.addAll(getPawnCaptureMoves(board, myPosition, promotionRow, moveDirection));
-
-        return moves;
+        long captures = PAWN_ATTACKS[color.ordinal()][from] & board.getTeamPieces(opposite(color));
+        while (captures != 0) {
+            addPawnMove(from, Long.numberOfTrailingZeros(captures), moves);
+            captures &= captures - 1;
+        }
     }
 
     /**
      * Calculates all positions a queen can move to
      * @param board ChessBoard object that tracks where pieces are and their team
-     * @param myPosition ChessPosition object that helps us find current piece
-     * @return HashSet of ChessPosition objects saying where queen can move to
+     * @param from square index of the queen
+     * @param own bitboard of the queen's team
+     * @param moves list to add the queen's encoded moves to
      */
-    private Collection<ChessMove> queenMoves(ChessBoard board, ChessPosition myPosition) {
-
-        // create collection to hold all the queen's possible diagonal moves
-        Collection<ChessMove> diagonalMoves = bishopMoves(board, myPosition);
-
-        // create collection to hold all the queen's possible straight moves
-        Collection<ChessMove> straightMoves = rookMoves(board, myPosition);
-
-        // initialize array (with diagonalMoves) to hold all queen's moves
-        HashSet<ChessMove> moves = new HashSet<>(diagonalMoves);
-
-        // add straight moves to queen's list of moves
-        moves.addAll(straightMoves);
-
-        // return all the possible moves in a single collection
-        return moves;
+    private static void queenMoves(ChessBoard board, int from, long own, IntMoveList moves) {
+        // the queen slides along both the rook and the bishop rays
+        addSlidingMoves(board, from, own, FIRST_STRAIGHT, DIRECTIONS.length, moves);
     }
 
     /**
      * Calculates all positions a rook can move to
      * @param board ChessBoard object that tracks where pieces are and their team
-     * @param myPosition ChessPosition object that helps us find current piece
-     * @return HashSet of ChessPosition objects saying where rook can move to
+     * @param from square index of the rook
+     * @param own bitboard of the rook's team
+     * @param moves list to add the rook's encoded moves to
      */
-    private Collection<ChessMove> rookMoves(ChessBoard board, ChessPosition myPosition) {
-
-        // create array of directions rook can move in
-        int[][] directions = {
-                {0,1},  // right
-                {0,-1}, // left
-                {1,0}, // up
-                {-1,0} // down
-        };
-        // call getMoves and return result
-        return getMoves(board, myPosition, directions);
-
+    private static void rookMoves(ChessBoard board, int from, long own, IntMoveList moves) {
+        addSlidingMoves(board, from, own, FIRST_STRAIGHT, FIRST_DIAGONAL, moves);
     }
 
     @Override
@@ -247,154 +280,91 @@ public class ChessPiece {
 
     /**
      *
-     * finds all possible moves a piece can make based on the directions it can move in
+     * adds the moves of a sliding piece by walking the precomputed rays until they're blocked
      *
      * @param board board the piece is on
-     * @param myPosition position the piece is at
-     * @param directions the directions the piece can move in
-     * @return collection of possible moves the piece can make
+     * @param from square index of the piece
+     * @param own bitboard of the piece's team
+     * @param firstDir first ray direction to walk (inclusive)
+     * @param lastDir last ray direction to walk (exclusive)
+     * @param moves list to add the encoded moves to
      */
-    private Collection<ChessMove> getMoves(ChessBoard board, ChessPosition myPosition, int[][] directions) {
-        // find ChessPiece we're looking at
-        ChessPiece currentPiece = board.getPiece(myPosition);
-
-        // create object to store all possible moves for piece
-        HashSet<ChessMove> moves = new HashSet<>();
-
-        // get start position info
-        int startRow = myPosition.getRow();
-        int startCol = myPosition.getColumn();
-
-        // Iterate through provided directions
-        for (int[] direction : directions) {
-            // store new row and col locations
-            int newRow = startRow;
-            int newCol = startCol;
-            boolean blocked = false;
-
-            // as long as new ChessPosition is within range:
-            while (!blocked) {
-                newRow += direction[0];
-                newCol += direction[1];
-
-                // check if we're still in-bounds or not
-                if (newRow < 1 || newRow > 8 || newCol < 1 || newCol > 8) {
-                    break;
+    private static void addSlidingMoves(ChessBoard board, int from, long own, int firstDir, int lastDir,
+                                        IntMoveList moves) {
+        long occupied = board.getOccupied();
+
+        for (int dir = firstDir; dir < lastDir; dir++) {
+            for (int to : RAYS[from][dir]) {
+                long bit = 1L << to;
+                // can land on an empty square or capture an opponent, but not our own piece
+                if ((own & bit) == 0) {
+                    moves.add(ChessMove.encode(from, to, null));
                 }
-
-                // make new ChessPosition and find piece there
-                ChessPosition newPosition = new ChessPosition(newRow, newCol);
-                ChessPiece newPiece = board.getPiece(newPosition);
-
-                // if we find a piece at newPosition
-                if (newPiece != null) {
-                    // if the piece isn't on our team, add newPosition to moves, else break
-                    if (newPiece.getTeamColor() != currentPiece.getTeamColor()) {
-                        moves.add(new ChessMove(myPosition, newPosition, null));
-                    }
-                    // we've hit a piece and can't continue along this diagonal, so break
-                    blocked = true;
-                } else {
-                    // empty space, add newPosition to moves
-                    moves.add(new ChessMove(myPosition, newPosition, null));
-                }
-                // if piece isn't long range (can't go forever in any one direction) then want to break loop
-                List<PieceType> longRange = Arrays.asList(PieceType.BISHOP, PieceType.ROOK, PieceType.QUEEN);
-                if (!longRange.contains(currentPiece.getPieceType())) {
-                    blocked = true;
+                // we've hit a piece and can't continue along this ray
+                if ((occupied & bit) != 0) {
+                    break;
                 }
             }
         }
-        return moves;
     }
 
     /**
      *
-     * gets all possible moves for a pawn
+     * adds a move to each target square of a piece that steps straight to them (knight or king)
      *
-     * @param board the board the pawn is on
-     * @param myPosition the pawn's starting position
-     * @param newPosition the pawn's possible ending position
-     * @param promotionRow the pawn's promotion row
-     * @param startRow the pawn's starting row at beginning of game
-     * @return the possible moves the pawn can make
+     * @param from square index of the piece
+     * @param targets bitboard of the squares the piece can step to
+     * @param moves list to add the encoded moves to
      */
-    private Collection<ChessMove> getPawnMoves(ChessBoard board, ChessPosition myPosition, ChessPosition newPosition,
-                                               int promotionRow, int startRow, int moveDirection) {
-
-        // initialize set to hold all the possible moves the pawn can make
-        HashSet<ChessMove> moves = new HashSet<>();
-
-        // Define all promotion options
-        List<PieceType> promotions = Arrays.asList(PieceType.ROOK, PieceType.KNIGHT, PieceType.BISHOP, PieceType.QUEEN);
-
-        // get row of end/ new position
-        int newRow = newPosition.getRow();
+    private static void addStepMoves(int from, long targets, IntMoveList moves) {
+        while (targets != 0) {
+            moves.add(ChessMove.encode(from, Long.numberOfTrailingZeros(targets), null));
+            targets &= targets - 1;
+        }
+    }
 
-        // check if the move gives us a promotion
-        if (newRow == promotionRow) {
-            // Add promotion moves
-            for (PieceType promotion : promotions) {
-                moves.add(new ChessMove(myPosition, newPosition, promotion));
+    /**
+     *
+     * adds a pawn move, expanding it into every promotion option if it ends on the last row
+     *
+     * @param from square index the pawn moves from
+     * @param to square index the pawn moves to
+     * @param moves list to add the encoded moves to
+     */
+    private static void addPawnMove(int from, int to, IntMoveList moves) {
+        int toRow = to >>> 3;
+        if (toRow == 0 || toRow == 7) {
+            for (PieceType promotion : PROMOTIONS) {
+                moves.add(ChessMove.encode(from, to, promotion));
             }
         } else {
-            moves.add(new ChessMove(myPosition, newPosition, null));
+            moves.add(ChessMove.encode(from, to, null));
         }
+    }
 
-        // Double forward move
-        if (myPosition.getRow() == startRow) {
-            ChessPosition doubleMovePosition = new ChessPosition(startRow + 2 * moveDirection, myPosition.getColumn());
-            if (board.getPiece(doubleMovePosition) == null) {
-                moves.add(new ChessMove(myPosition, doubleMovePosition, null));
-            }
+    /**
+     *
+     * gets the bit for a 0-indexed row and column, or an empty bitboard if it's off the board
+     *
+     * @param row row from 0 to 7
+     * @param col column from 0 to 7
+     * @return bitboard with only that square set
+     */
+    private static long bitAt(int row, int col) {
+        if (row < 0 || row > 7 || col < 0 || col > 7) {
+            return 0;
         }
-        return moves;
+        return 1L << ((row << 3) | col);
     }
 
     /**
      *
-     * gets all the possible capture moves a pawn can make
+     * gets the color of the other team
      *
-     * @param board board the pawn is on
-     * @param myPosition position the pawn is at
-     * @param promotionRow the row the pawn gets promoted on
-     * @param moveDirection the direction the pawn moves in
-     * @return collection of the pawn's capture moves
+     * @param color color of current team
+     * @return color of the opposing team
      */
-    private Collection<ChessMove> getPawnCaptureMoves(ChessBoard board, ChessPosition myPosition, int promotionRow, int moveDirection) {
-        // initialize set to hold all the possible moves the pawn can make
-        HashSet<ChessMove> moves = new HashSet<>();
-
-        // Define all promotion options
-        List<PieceType> promotions = Arrays.asList(PieceType.ROOK, PieceType.KNIGHT, PieceType.BISHOP, PieceType.QUEEN);
-
-        List<Integer> captureOffsets = Arrays.asList(-1, 1);
-
-        ChessPiece currentPiece = board.getPiece(myPosition);
-
-        int newRow = myPosition.getRow() + moveDirection;
-        int startCol = myPosition.getColumn();
-
-        for (int offset : captureOffsets) {
-            int captureCol = startCol + offset;
-            if (captureCol < 1 || captureCol > 8) { // Ensure within board bounds
-                break;
-            }
-
-            ChessPosition capturePosition = new ChessPosition(newRow, captureCol);
-            ChessPiece targetPiece = board.getPiece(capturePosition);
-
-            if (targetPiece != null && targetPiece.getTeamColor() != currentPiece.getTeamColor()) {
-                if (newRow == promotionRow) {
-                    // Add promotion moves during capture
-                    for (PieceType promotion : promotions) {
-                        moves.add(new ChessMove(myPosition, capturePosition, promotion));
-                    }
-                } else {
-                    moves.add(new ChessMove(myPosition, capturePosition, null));
-                }
-            }
-        }
-        return moves;
+    private static ChessGame.TeamColor opposite(ChessGame.TeamColor color) {
+        return color == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
     }
 }
@@ -0,0 +1,117 @@
+package chess;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * A growable list of encoded moves (see ChessMove.encode) backed by a plain int array,
+ * so move generation can fill it without boxing or hashing
+ */
+public class IntMoveList {
+
+    private static final ThreadLocal<IntMoveList> SCRATCH = ThreadLocal.withInitial(IntMoveList::new);
+
+    private int[] moves;
+    private int size;
+
+    public IntMoveList() {
+        this(64);
+    }
+
+    public IntMoveList(int capacity) {
+        moves = new int[Math.max(capacity, 1)];
+    }
+
+    /**
+     * Gets this thread's reusable list, emptied and ready to fill.
+     * The same list is handed out on every call from a thread, so finish with it
+     * before generating moves into it again.
+     *
+     * @return the calling thread's scratch list
+     */
+    public static IntMoveList scratch() {
+        IntMoveList list = SCRATCH.get();
+        list.clear();
+        return list;
+    }
+
+    /**
+     * Adds an encoded move to the end of the list
+     *
+     * @param move encoded move to add
+     */
+    public void add(int move) {
+        if (size == moves.length) {
+            moves = Arrays.copyOf(moves, size * 2);
+        }
+        moves[size++] = move;
+    }
+
+    /**
+     * @param i index of the move to get
+     * @return encoded move at that index
+     */
+    public int get(int i) {
+        if (i >= size) {
+            throw new IndexOutOfBoundsException("Index " + i + " out of bounds for size " + size);
+        }
+        return moves[i];
+    }
+
+    /**
+     * @param move encoded move to look for
+     * @return true if the list has that move
+     */
+    public boolean contains(int move) {
+        for (int i = 0; i < size; i++) {
+            if (moves[i] == move) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return number of moves in the list
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return true if the list has no moves
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Empties the list while keeping its backing array for reuse
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Decodes every move in the list and adds it to a collection
+     *
+     * @param target collection to add the decoded moves to
+     */
+    public void decodeInto(Collection<ChessMove> target) {
+        for (int i = 0; i < size; i++) {
+            target.add(ChessMove.decode(moves[i]));
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("IntMoveList{");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(ChessMove.decode(moves[i]));
+        }
+        return sb.append('}').toString();
+    }
+}
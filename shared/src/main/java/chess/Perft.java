@@ -0,0 +1,209 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Perft (performance test) for the move generator: counts every leaf node of the legal move
+ * tree to a fixed depth from a position, using ChessGame.validMoves and ChessGame.makeMove.
+ * <p>
+ * This engine doesn't implement castling or en passant, so published perft counts only
+ * apply to positions and depths where neither can happen. The expected counts in
+ * {@link Position} are limited to those.
+ * <p>
+ * Usage: {@code Perft [maxDepth] [fen] [--parallel]}. With no FEN every standard position is run.
+ */
+public class Perft {
+
+    /**
+     * Standard perft positions and their published node counts (index 0 is depth 1),
+     * trimmed to the depths where castling and en passant don't affect the count
+     */
+    public enum Position {
+        START("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1", 20, 400, 8902, 197281),
+        KIWIPETE("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1"),
+        POSITION_3("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1", 14, 191),
+        POSITION_4("r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1", 6),
+        POSITION_5("rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8"),
+        POSITION_6("r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10", 46, 2079, 89890);
+
+        private final String fen;
+        private final long[] expected;
+
+        Position(String fen, long... expected) {
+            this.fen = fen;
+            this.expected = expected;
+        }
+
+        public String getFen() {
+            return fen;
+        }
+
+        /**
+         * @param depth depth to look up
+         * @return the published node count at that depth, or -1 if it isn't known for this engine's rules
+         */
+        public long expectedNodes(int depth) {
+            return depth >= 1 && depth <= expected.length ? expected[depth - 1] : -1;
+        }
+    }
+
+    /**
+     * Counts the leaf nodes of the legal move tree on a single thread
+     *
+     * @param game position to start from (left unchanged)
+     * @param depth number of plies to search
+     * @return number of leaf nodes at that depth
+     */
+    public static long perft(ChessGame game, int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+
+        long nodes = 0;
+        for (ChessMove move : legalMoves(game)) {
+            // the last ply only needs counting, not playing out
+            nodes += depth == 1 ? 1 : perft(playMove(game, move), depth - 1);
+        }
+        return nodes;
+    }
+
+    /**
+     * Counts the leaf nodes of the legal move tree, searching each root move in parallel
+     *
+     * @param game position to start from (left unchanged)
+     * @param depth number of plies to search
+     * @param pool fork-join pool to run the search on
+     * @return number of leaf nodes at that depth
+     */
+    public static long parallelPerft(ChessGame game, int depth, ForkJoinPool pool) {
+        return pool.invoke(new PerftTask(game, depth));
+    }
+
+    public static void main(String[] args) {
+        int maxDepth = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        boolean parallel = false;
+        String fen = null;
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("--parallel")) {
+                parallel = true;
+            } else {
+                fen = args[i];
+            }
+        }
+
+        if (fen != null) {
+            run(fen, null, maxDepth, parallel);
+        } else {
+            for (Position position : Position.values()) {
+                run(position.getFen(), position, maxDepth, parallel);
+            }
+        }
+    }
+
+    //------------------------------------------------------------------------------------------------
+    // Custom Methods
+    //------------------------------------------------------------------------------------------------
+
+    /**
+     *
+     * runs perft to each depth up to maxDepth and prints nodes, time and nodes/second,
+     * flagging any count that doesn't match the published one
+     *
+     * @param fen position to search
+     * @param position standard position being run, or null for a custom FEN
+     * @param maxDepth deepest depth to search
+     * @param parallel true to search with fork-join instead of a single thread
+     */
+    private static void run(String fen, Position position, int maxDepth, boolean parallel) {
+        ChessGame game = ChessGame.fromFen(fen);
+        System.out.println((position == null ? "custom" : position.name()) + " " + fen
+                + (parallel ? " (parallel)" : " (single-threaded)"));
+
+        for (int depth = 1; depth <= maxDepth; depth++) {
+            long start = System.nanoTime();
+            long nodes = parallel ? parallelPerft(game, depth, ForkJoinPool.commonPool()) : perft(game, depth);
+            long elapsed = Math.max(System.nanoTime() - start, 1);
+
+            long expected = position == null ? -1 : position.expectedNodes(depth);
+            String check = expected < 0 ? "" : (expected == nodes ? "  ok" : "  MISMATCH expected " + expected);
+            System.out.printf("  depth %d: %,d nodes in %.1f ms (%,.0f nodes/s)%s%n",
+                    depth, nodes, elapsed / 1e6, nodes * 1e9 / elapsed, check);
+        }
+    }
+
+    /**
+     *
+     * gets every legal move for the side to move
+     *
+     * @param game position to get moves for
+     * @return all the legal moves
+     */
+    private static Collection<ChessMove> legalMoves(ChessGame game) {
+        List<ChessMove> moves = new ArrayList<>();
+        ChessBoard board = game.getBoard();
+        long pieces = board.getTeamPieces(game.getTeamTurn());
+        while (pieces != 0) {
+            moves.addAll(game.validMoves(ChessPosition.ofSquare(Long.numberOfTrailingZeros(pieces))));
+            pieces &= pieces - 1;
+        }
+        return moves;
+    }
+
+    /**
+     *
+     * plays a move on a copy of a game
+     *
+     * @param game game to copy
+     * @param move legal move to play
+     * @return copy of the game with the move made
+     */
+    private static ChessGame playMove(ChessGame game, ChessMove move) {
+        ChessGame child = new ChessGame(game);
+        try {
+            child.makeMove(move);
+        } catch (InvalidMoveException e) {
+            throw new IllegalStateException("validMoves returned a move makeMove rejected: " + move, e);
+        }
+        return child;
+    }
+
+    /**
+     * Fork-join task that searches each root move as its own subtask
+     */
+    private static class PerftTask extends RecursiveTask<Long> {
+        private final ChessGame game;
+        private final int depth;
+        private final boolean root;
+
+        PerftTask(ChessGame game, int depth) {
+            this(game, depth, true);
+        }
+
+        private PerftTask(ChessGame game, int depth, boolean root) {
+            this.game = game;
+            this.depth = depth;
+            this.root = root;
+        }
+
+        @Override
+        protected Long compute() {
+            if (!root || depth <= 1) {
+                return perft(game, depth);
+            }
+
+            List<PerftTask> subtasks = new ArrayList<>();
+            for (ChessMove move : legalMoves(game)) {
+                subtasks.add(new PerftTask(playMove(game, move), depth - 1, false));
+            }
+            long nodes = 0;
+            for (PerftTask task : invokeAll(subtasks)) {
+                nodes += task.join();
+            }
+            return nodes;
+        }
+    }
+}
@@ -1,6 +1,6 @@
 package facade;
 
-import com.google.gson.Gson;
+import serialization.Serializer;
 
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -13,7 +13,7 @@ public class ResponseException extends Exception {
     }
 
     public static ResponseException fromJson(InputStream stream) {
-        var map = new Gson().fromJson(new InputStreamReader(stream), HashMap.class);
+        var map = Serializer.fromJson(new InputStreamReader(stream), HashMap.class);
         String message = map.get("message").toString();
         return new ResponseException(message);
     }
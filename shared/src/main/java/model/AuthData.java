@@ -1,6 +1,6 @@
 package model;
 
-import com.google.gson.Gson;
+import serialization.Serializer;
 
 public record AuthData(
         String authToken,
@@ -8,6 +8,6 @@ public record AuthData(
 ) {
     @Override
     public String toString() {
-        return new Gson().toJson(this);
+        return Serializer.toJson(this);
     }
 }
@@ -1,20 +1,94 @@
 package model;
 import chess.ChessGame;
-import com.google.gson.Gson;
+import serialization.Serializer;
 
 import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * A stored game: its players, name and state.
+ * <p>
+ * Works like a record, but the ChessGame can be loaded lazily (see {@link #lazy}), so code that only
+ * looks at the players or gameOver never pays for decoding the board.
+ */
+public final class GameData {
+
+    private final int gameID;
+    private final String whiteUsername;
+    private final String blackUsername;
+    private final String gameName;
+    private volatile ChessGame game;
+    private final boolean gameOver;
+
+    // decodes the game the first time game() is called; null once it's been decoded (or if it never needed to be)
+    private transient volatile Supplier<ChessGame> loader;
+
+    public GameData(int gameID, String whiteUsername, String blackUsername, String gameName, ChessGame game,
+                    boolean gameOver) {
+        this.gameID = gameID;
+        this.whiteUsername = whiteUsername;
+        this.blackUsername = blackUsername;
+        this.gameName = gameName;
+        this.game = game;
+        this.gameOver = gameOver;
+    }
+
+    /**
+     * Makes GameData whose game is only decoded when game() is first called
+     *
+     * @param loader decodes the game, called at most once
+     * @return GameData that decodes its game on demand
+     */
+    public static GameData lazy(int gameID, String whiteUsername, String blackUsername, String gameName,
+                                Supplier<ChessGame> loader, boolean gameOver) {
+        GameData data = new GameData(gameID, whiteUsername, blackUsername, gameName, null, gameOver);
+        data.loader = loader;
+        return data;
+    }
+
+    public int gameID() {
+        return gameID;
+    }
+
+    public String whiteUsername() {
+        return whiteUsername;
+    }
+
+    public String blackUsername() {
+        return blackUsername;
+    }
+
+    public String gameName() {
+        return gameName;
+    }
+
+    public ChessGame game() {
+        if (loader != null) {
+            synchronized (this) {
+                Supplier<ChessGame> pending = loader;
+                if (pending != null) {
+                    game = pending.get();
+                    loader = null;
+                }
+            }
+        }
+        return game;
+    }
+
+    public boolean gameOver() {
+        return gameOver;
+    }
+
+    /**
+     * @return true if the game has been decoded (or never needed decoding)
+     */
+    public boolean isGameLoaded() {
+        return loader == null;
+    }
 
-public record GameData(
-        int gameID,
-        String whiteUsername,
-        String blackUsername,
-        String gameName,
-        ChessGame game,
-        boolean gameOver
-) {
     @Override
     public String toString() {
-        return new Gson().toJson(this);
+        return Serializer.toJson(this);
     }
 
     @Override
@@ -24,7 +98,7 @@ public record GameData(
         }
         GameData gameData = (GameData) o;
         return gameID == gameData.gameID
-                && Objects.equals(game, gameData.game)
+                && Objects.equals(game(), gameData.game())
                 && Objects.equals(gameName, gameData.gameName)
                 && Objects.equals(whiteUsername, gameData.whiteUsername)
                 && Objects.equals(blackUsername, gameData.blackUsername)
@@ -33,6 +107,6 @@ public record GameData(
 
     @Override
     public int hashCode() {
-        return Objects.hash(gameID, whiteUsername, blackUsername, gameName, game, gameOver);
+        return Objects.hash(gameID, whiteUsername, blackUsername, gameName, game(), gameOver);
     }
 }
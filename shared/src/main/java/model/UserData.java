@@ -1,6 +1,6 @@
 package model;
 
-import com.google.gson.*;
+import serialization.Serializer;
 
 public record UserData(
         String username,
@@ -9,7 +9,7 @@ public record UserData(
 
     @Override
     public String toString() {
-        return new Gson().toJson(this);
+        return Serializer.toJson(this);
     }
 
 }
@@ -0,0 +1,115 @@
+package serialization;
+
+import chess.ChessBoard;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Writes a ChessBoard as the piece placement field of a FEN string,
+ * e.g. "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR".
+ * Also reads the older reflective forms: an 8x8 "squares" array of pieces (index [row - 1][col - 1]),
+ * or the 12 "pieceBoards" bitboards.
+ */
+public class ChessBoardAdapter extends TypeAdapter<ChessBoard> {
+
+    @Override
+    public void write(JsonWriter out, ChessBoard board) throws IOException {
+        if (board == null) {
+            out.nullValue();
+            return;
+        }
+        out.value(board.toFen());
+    }
+
+    @Override
+    public ChessBoard read(JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        if (token == JsonToken.BEGIN_OBJECT) {
+            return readLegacy(in);
+        }
+
+        String placement = in.nextString();
+        try {
+            return ChessBoard.fromFen(placement);
+        } catch (IllegalArgumentException e) {
+            throw new JsonSyntaxException("Invalid chess board at " + in.getPreviousPath(), e);
+        }
+    }
+
+    //------------------------------------------------------------------------------------------------
+    // Helper Functions
+    //------------------------------------------------------------------------------------------------
+
+    /**
+     *
+     * reads a board written as an object with either a squares array or pieceBoards bitboards
+     *
+     * @param in reader positioned at the start of the object
+     * @return the board
+     * @throws IOException if the JSON can't be read
+     */
+    private static ChessBoard readLegacy(JsonReader in) throws IOException {
+        ChessBoard board = new ChessBoard();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "squares" -> readSquares(in, board);
+                case "pieceBoards" -> readPieceBoards(in, board);
+                // occupancy and the hash are rebuilt from the pieces
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+        return board;
+    }
+
+    private static void readSquares(JsonReader in, ChessBoard board) throws IOException {
+        in.beginArray();
+        for (int row = 1; in.hasNext(); row++) {
+            in.beginArray();
+            for (int col = 1; in.hasNext(); col++) {
+                ChessPiece piece = in.peek() == JsonToken.NULL ? skipNull(in) : ChessPieceAdapter.readLegacy(in);
+                if (piece != null) {
+                    if (row > 8 || col > 8) {
+                        throw new JsonSyntaxException("Chess board has a piece off the board at " + in.getPreviousPath());
+                    }
+                    board.addPiece(ChessPosition.of(row, col), piece);
+                }
+            }
+            in.endArray();
+        }
+        in.endArray();
+    }
+
+    private static void readPieceBoards(JsonReader in, ChessBoard board) throws IOException {
+        in.beginArray();
+        for (int index = 0; in.hasNext(); index++) {
+            long bits = in.nextLong();
+            if (index >= 12) {
+                throw new JsonSyntaxException("Chess board has too many piece bitboards at " + in.getPreviousPath());
+            }
+            ChessPiece piece = ChessBoard.pieceFor(index);
+            while (bits != 0) {
+                board.addPiece(ChessPosition.ofSquare(Long.numberOfTrailingZeros(bits)), piece);
+                bits &= bits - 1;
+            }
+        }
+        in.endArray();
+    }
+
+    private static ChessPiece skipNull(JsonReader in) throws IOException {
+        in.nextNull();
+        return null;
+    }
+}
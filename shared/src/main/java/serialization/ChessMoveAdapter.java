@@ -0,0 +1,208 @@
+package serialization;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Writes a ChessMove as a short coordinate string: "e2e4", or "e7e8q" with the promotion
+ * piece's letter on the end. Also reads the older reflective form,
+ * {"startPosition":{"row":2,"col":5},"endPosition":{"row":4,"col":5},"promotionPiece":null}.
+ */
+public class ChessMoveAdapter extends TypeAdapter<ChessMove> {
+
+    @Override
+    public void write(JsonWriter out, ChessMove move) throws IOException {
+        if (move == null) {
+            out.nullValue();
+            return;
+        }
+
+        // the coordinate form can only name squares on the board, so anything else keeps the object form
+        if (!isOnBoard(move.getStartPosition()) || !isOnBoard(move.getEndPosition())) {
+            writeLegacy(out, move);
+            return;
+        }
+
+        char[] text = new char[move.getPromotionPiece() == null ? 4 : 5];
+        writeSquare(text, 0, move.getStartPosition());
+        writeSquare(text, 2, move.getEndPosition());
+        if (move.getPromotionPiece() != null) {
+            // black's letters are the lower case ones
+            text[4] = ChessBoard.fenLetter(ChessBoard.pieceIndex(ChessGame.TeamColor.BLACK, move.getPromotionPiece()));
+        }
+        out.value(new String(text));
+    }
+
+    @Override
+    public ChessMove read(JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        if (token == JsonToken.BEGIN_OBJECT) {
+            return readLegacy(in);
+        }
+
+        String text = in.nextString();
+        ChessPiece.PieceType promotion = null;
+        if (text.length() == 5) {
+            int index = ChessBoard.pieceIndexForFen(text.charAt(4));
+            if (index < 0) {
+                throw badMove(text, in);
+            }
+            promotion = ChessBoard.pieceFor(index).getPieceType();
+        } else if (text.length() != 4) {
+            throw badMove(text, in);
+        }
+        return new ChessMove(readSquare(text, 0, in), readSquare(text, 2, in), promotion);
+    }
+
+    //------------------------------------------------------------------------------------------------
+    // Helper Functions
+    //------------------------------------------------------------------------------------------------
+
+    /**
+     *
+     * writes a position as a file letter and rank digit
+     *
+     * @param text characters to write into
+     * @param offset where to write the two characters
+     * @param position position to write (must be on the board)
+     */
+    private static void writeSquare(char[] text, int offset, ChessPosition position) {
+        text[offset] = (char) ('a' + position.getColumn() - 1);
+        text[offset + 1] = (char) ('0' + position.getRow());
+    }
+
+    /**
+     *
+     * writes a move as an object with startPosition, endPosition and promotionPiece fields
+     *
+     * @param out writer to write to
+     * @param move move to write
+     * @throws IOException if the JSON can't be written
+     */
+    private static void writeLegacy(JsonWriter out, ChessMove move) throws IOException {
+        out.beginObject();
+        out.name("startPosition");
+        writeLegacyPosition(out, move.getStartPosition());
+        out.name("endPosition");
+        writeLegacyPosition(out, move.getEndPosition());
+        if (move.getPromotionPiece() != null) {
+            out.name("promotionPiece").value(move.getPromotionPiece().name());
+        }
+        out.endObject();
+    }
+
+    private static void writeLegacyPosition(JsonWriter out, ChessPosition position) throws IOException {
+        if (position == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("row").value(position.getRow());
+        out.name("col").value(position.getColumn());
+        out.endObject();
+    }
+
+    private static boolean isOnBoard(ChessPosition position) {
+        return position != null && position.getRow() >= 1 && position.getRow() <= 8
+                && position.getColumn() >= 1 && position.getColumn() <= 8;
+    }
+
+    /**
+     *
+     * reads a file letter and rank digit as a position
+     *
+     * @param text move text
+     * @param offset where the square starts
+     * @param in reader, for the error message
+     * @return the shared position for that square
+     */
+    private static ChessPosition readSquare(String text, int offset, JsonReader in) {
+        int col = text.charAt(offset) - 'a' + 1;
+        int row = text.charAt(offset + 1) - '0';
+        if (col < 1 || col > 8 || row < 1 || row > 8) {
+            throw badMove(text, in);
+        }
+        return ChessPosition.of(row, col);
+    }
+
+    /**
+     *
+     * reads a move written as an object with startPosition, endPosition and promotionPiece fields
+     *
+     * @param in reader positioned at the start of the object
+     * @return the move
+     * @throws IOException if the JSON can't be read
+     */
+    private static ChessMove readLegacy(JsonReader in) throws IOException {
+        ChessPosition start = null;
+        ChessPosition end = null;
+        ChessPiece.PieceType promotion = null;
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "startPosition" -> start = readLegacyPosition(in);
+                case "endPosition" -> end = readLegacyPosition(in);
+                case "promotionPiece" -> {
+                    if (in.peek() == JsonToken.NULL) {
+                        in.nextNull();
+                    } else {
+                        String name = in.nextString();
+                        try {
+                            promotion = ChessPiece.PieceType.valueOf(name);
+                        } catch (IllegalArgumentException e) {
+                            throw new JsonSyntaxException("Invalid promotion piece " + name + " at " + in.getPreviousPath(), e);
+                        }
+                    }
+                }
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+        return new ChessMove(start, end, promotion);
+    }
+
+    /**
+     *
+     * reads a position written as an object with row and col fields
+     *
+     * @param in reader positioned at the position
+     * @return the position, or null if it was null
+     * @throws IOException if the JSON can't be read
+     */
+    private static ChessPosition readLegacyPosition(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        int row = 0;
+        int col = 0;
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "row" -> row = in.nextInt();
+                case "col" -> col = in.nextInt();
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+        return ChessPosition.of(row, col);
+    }
+
+    private static JsonSyntaxException badMove(String text, JsonReader in) {
+        return new JsonSyntaxException("Invalid chess move '" + text + "' at " + in.getPreviousPath());
+    }
+}
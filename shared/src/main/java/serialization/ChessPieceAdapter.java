@@ -0,0 +1,83 @@
+package serialization;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Writes a ChessPiece as its one letter FEN name ("P" for a white pawn, "k" for a black king).
+ * Also reads the older reflective form, {"pieceColor":"WHITE","type":"PAWN"}.
+ * Pieces read back are the board's shared instances, so nothing is allocated per piece.
+ */
+public class ChessPieceAdapter extends TypeAdapter<ChessPiece> {
+
+    @Override
+    public void write(JsonWriter out, ChessPiece piece) throws IOException {
+        if (piece == null) {
+            out.nullValue();
+            return;
+        }
+        out.value(String.valueOf(ChessBoard.fenLetter(ChessBoard.pieceIndex(piece.getTeamColor(), piece.getPieceType()))));
+    }
+
+    @Override
+    public ChessPiece read(JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        if (token == JsonToken.BEGIN_OBJECT) {
+            return readLegacy(in);
+        }
+
+        String letter = in.nextString();
+        int index = letter.length() == 1 ? ChessBoard.pieceIndexForFen(letter.charAt(0)) : -1;
+        if (index < 0) {
+            throw new JsonSyntaxException("Invalid chess piece '" + letter + "' at " + in.getPreviousPath());
+        }
+        return ChessBoard.pieceFor(index);
+    }
+
+    //------------------------------------------------------------------------------------------------
+    // Helper Functions
+    //------------------------------------------------------------------------------------------------
+
+    /**
+     *
+     * reads a piece written as an object with pieceColor and type fields
+     *
+     * @param in reader positioned at the start of the object
+     * @return the shared instance of that piece
+     * @throws IOException if the JSON can't be read
+     */
+    static ChessPiece readLegacy(JsonReader in) throws IOException {
+        ChessGame.TeamColor color = null;
+        ChessPiece.PieceType type = null;
+        in.beginObject();
+        try {
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "pieceColor" -> color = ChessGame.TeamColor.valueOf(in.nextString());
+                    case "type" -> type = ChessPiece.PieceType.valueOf(in.nextString());
+                    default -> in.skipValue();
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            throw new JsonSyntaxException("Invalid chess piece at " + in.getPath(), e);
+        }
+        in.endObject();
+
+        if (color == null || type == null) {
+            throw new JsonSyntaxException("Chess piece is missing its color or type at " + in.getPreviousPath());
+        }
+        return ChessBoard.pieceFor(ChessBoard.pieceIndex(color, type));
+    }
+}
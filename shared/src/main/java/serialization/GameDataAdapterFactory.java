@@ -0,0 +1,41 @@
+package serialization;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import model.GameData;
+
+import java.io.IOException;
+
+/**
+ * Makes sure a GameData whose game hasn't been decoded yet decodes it before being written, so the
+ * game is always in the JSON. Everything else is left to Gson's normal reflective adapter.
+ */
+class GameDataAdapterFactory implements TypeAdapterFactory {
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        if (type.getRawType() != GameData.class) {
+            return null;
+        }
+        TypeAdapter<GameData> reflective = (TypeAdapter<GameData>) gson.getDelegateAdapter(this, type);
+        return (TypeAdapter<T>) new TypeAdapter<GameData>() {
+            @Override
+            public void write(JsonWriter out, GameData value) throws IOException {
+                if (value != null) {
+                    value.game();
+                }
+                reflective.write(out, value);
+            }
+
+            @Override
+            public GameData read(JsonReader in) throws IOException {
+                return reflective.read(in);
+            }
+        };
+    }
+}
@@ -0,0 +1,42 @@
+package serialization;
+
+import chess.ChessBoard;
+import chess.ChessMove;
+import chess.ChessPiece;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+/**
+ * Builds the Gson used for everything the client and server send or store, with compact
+ * type adapters for the chess classes so games serialize as short readable strings
+ * instead of reflected object graphs
+ */
+public final class GsonFactory {
+
+    // Gson is thread safe once built, so one instance is shared by the whole JVM
+    private static final Gson GSON = builder().create();
+
+    private GsonFactory() {
+    }
+
+    /**
+     * @return the shared, preconfigured Gson
+     */
+    public static Gson gson() {
+        return GSON;
+    }
+
+    /**
+     * Gets a builder with the chess type adapters already registered, for callers that need
+     * extra configuration on top of them
+     *
+     * @return new builder with the chess adapters
+     */
+    public static GsonBuilder builder() {
+        return new GsonBuilder()
+                .registerTypeAdapter(ChessBoard.class, new ChessBoardAdapter())
+                .registerTypeAdapter(ChessPiece.class, new ChessPieceAdapter())
+                .registerTypeAdapter(ChessMove.class, new ChessMoveAdapter())
+                .registerTypeAdapterFactory(new GameDataAdapterFactory());
+    }
+}
@@ -0,0 +1,183 @@
+package serialization;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.google.gson.stream.MalformedJsonException;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.CharBuffer;
+
+/**
+ * The one place JSON is read and written, used by the client, the server and the shared models.
+ * <p>
+ * Everything goes through the shared Gson from GsonFactory, so the chess adapters are always
+ * registered and Gson's reflective adapters are only built once per JVM. The adapter for each class
+ * is also looked up once and kept in a ClassValue, so a call goes straight to its adapter.
+ * Behaves like Gson.toJson/fromJson: null writes "null", empty input reads as null and trailing
+ * content is an error.
+ */
+public final class Serializer {
+
+    private static final Gson GSON = GsonFactory.gson();
+
+    // adapter for each class that's been serialized, looked up from the shared Gson the first time it's used
+    private static final ClassValue<TypeAdapter<?>> ADAPTERS = new ClassValue<>() {
+        @Override
+        protected TypeAdapter<?> computeValue(Class<?> type) {
+            return GSON.getAdapter(type);
+        }
+    };
+
+    private Serializer() {
+    }
+
+    /**
+     * Gets the cached adapter for a class
+     *
+     * @param type class to get the adapter for
+     * @return adapter that reads and writes that class
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> TypeAdapter<T> adapter(Class<T> type) {
+        return (TypeAdapter<T>) ADAPTERS.get(type);
+    }
+
+    /**
+     * Makes a JsonWriter with the shared Gson's settings, for writing a document a piece at a time
+     *
+     * @param writer where to write the JSON
+     * @return writer for the JSON
+     * @throws JsonIOException if the writer fails
+     */
+    public static JsonWriter newJsonWriter(Writer writer) {
+        try {
+            return GSON.newJsonWriter(writer);
+        } catch (IOException e) {
+            throw new JsonIOException(e);
+        }
+    }
+
+    /**
+     * Serializes an object using the adapter for its runtime class
+     *
+     * @param value object to serialize
+     * @return JSON for the object
+     */
+    public static String toJson(Object value) {
+        StringWriter out = new StringWriter();
+        toJson(value, out);
+        return out.toString();
+    }
+
+    /**
+     * Serializes an object straight to a writer, using the adapter for its runtime class
+     *
+     * @param value object to serialize
+     * @param writer where to write the JSON
+     * @throws JsonIOException if the writer fails
+     */
+    @SuppressWarnings("unchecked")
+    public static void toJson(Object value, Appendable writer) {
+        try {
+            JsonWriter out = GSON.newJsonWriter(writer instanceof Writer w ? w : new AppendableWriter(writer));
+            if (value == null) {
+                out.nullValue();
+            } else {
+                ((TypeAdapter<Object>) adapter(value.getClass())).write(out, value);
+            }
+            out.flush();
+        } catch (IOException e) {
+            throw new JsonIOException(e);
+        }
+    }
+
+    /**
+     * Deserializes JSON text
+     *
+     * @param json JSON to read
+     * @param type class to read it as
+     * @return the object, or null if the text is null or empty
+     * @throws JsonSyntaxException if the JSON is malformed or doesn't match the class
+     */
+    public static <T> T fromJson(String json, Class<T> type) {
+        if (json == null) {
+            return null;
+        }
+        return fromJson(new StringReader(json), type);
+    }
+
+    /**
+     * Deserializes JSON from a reader
+     *
+     * @param reader where to read the JSON from
+     * @param type class to read it as
+     * @return the object, or null if the reader is empty
+     * @throws JsonSyntaxException if the JSON is malformed or doesn't match the class
+     * @throws JsonIOException if the reader fails
+     */
+    public static <T> T fromJson(Reader reader, Class<T> type) {
+        JsonReader in = GSON.newJsonReader(reader);
+        // lenient like Gson.fromJson, so the same inputs are accepted
+        in.setLenient(true);
+        try {
+            try {
+                if (in.peek() == JsonToken.END_DOCUMENT) {
+                    return null;
+                }
+            } catch (EOFException e) {
+                // empty input reads as null, same as Gson
+                return null;
+            }
+            T value = adapter(type).read(in);
+            if (in.peek() != JsonToken.END_DOCUMENT) {
+                throw new JsonSyntaxException("JSON document was not fully consumed.");
+            }
+            return value;
+        } catch (MalformedJsonException | IllegalStateException e) {
+            throw new JsonSyntaxException(e);
+        } catch (EOFException e) {
+            throw new JsonSyntaxException("JSON document ended early", e);
+        } catch (IOException e) {
+            throw new JsonIOException(e);
+        }
+    }
+
+    /**
+     * Lets JSON be written to any Appendable, like a StringBuilder
+     */
+    private static class AppendableWriter extends Writer {
+        private final Appendable appendable;
+
+        AppendableWriter(Appendable appendable) {
+            this.appendable = appendable;
+        }
+
+        @Override
+        public void write(char[] chars, int offset, int length) throws IOException {
+            appendable.append(CharBuffer.wrap(chars, offset, length));
+        }
+
+        @Override
+        public void write(String str, int offset, int length) throws IOException {
+            appendable.append(str, offset, offset + length);
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -1,6 +1,6 @@
 package websocket.messages;
 
-import com.google.gson.Gson;
+import serialization.Serializer;
 
 import java.util.Objects;
 
@@ -27,7 +27,7 @@ public class ServerMessage {
     }
 
     public String toString() {
-        return new Gson().toJson(this);
+        return Serializer.toJson(this);
     }
 
     @Override
@@ -0,0 +1,25 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChessBoardTest {
+
+    @Test
+    void offBoardPositionsAreRejected() {
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+        ChessPiece rook = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK);
+
+        // (1,9) would otherwise wrap round to a2, and row or column 0 onto other real squares
+        for (ChessPosition offBoard : new ChessPosition[]{
+                new ChessPosition(1, 9), new ChessPosition(0, 4), new ChessPosition(4, 0), new ChessPosition(9, 1)}) {
+            assertThrows(IllegalArgumentException.class, () -> board.getPiece(offBoard));
+            assertThrows(IllegalArgumentException.class, () -> board.addPiece(offBoard, null));
+            assertThrows(IllegalArgumentException.class, () -> rook.pieceMoves(board, offBoard));
+        }
+        assertEquals(new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN),
+                board.getPiece(new ChessPosition(2, 1)), "a2 shouldn't have been touched");
+    }
+}
@@ -0,0 +1,64 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChessGameCodecTest {
+
+    @ParameterizedTest
+    @EnumSource(Perft.Position.class)
+    void roundTripsPositions(Perft.Position position) {
+        ChessGame game = ChessGame.fromFen(position.getFen());
+        byte[] encoded = ChessGameCodec.encode(game);
+        assertEquals(ChessGameCodec.ENCODED_LENGTH, encoded.length);
+        assertEquals(ChessGameCodec.VERSION, encoded[0]);
+
+        ChessGame decoded = ChessGameCodec.decode(encoded);
+        assertEquals(game, decoded);
+        assertEquals(game.getZobristKey(), decoded.getZobristKey());
+    }
+
+    @Test
+    void keepsSideToMove() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(new ChessMove(ChessPosition.of(2, 5), ChessPosition.of(4, 5), null));
+
+        ChessGame decoded = ChessGameCodec.decodeFromString(ChessGameCodec.encodeToString(game));
+        assertEquals(ChessGame.TeamColor.BLACK, decoded.getTeamTurn());
+        assertEquals(game, decoded);
+        assertEquals(1, decoded.getPly());
+    }
+
+    @Test
+    void decodesVersion1() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(new ChessMove(ChessPosition.of(2, 5), ChessPosition.of(4, 5), null));
+
+        // version 1 was the same bytes without the ply count on the end
+        byte[] version1 = Arrays.copyOf(ChessGameCodec.encode(game), 34);
+        version1[0] = 1;
+        ChessGame decoded = ChessGameCodec.decode(version1);
+        assertEquals(game, decoded);
+        assertEquals(0, decoded.getPly());
+    }
+
+    @Test
+    void rejectsBadInput() {
+        byte[] encoded = ChessGameCodec.encode(new ChessGame());
+
+        byte[] wrongVersion = encoded.clone();
+        wrongVersion[0] = 99;
+        assertThrows(IllegalArgumentException.class, () -> ChessGameCodec.decode(wrongVersion));
+
+        byte[] badPiece = encoded.clone();
+        badPiece[20] = (byte) 0xFF;
+        assertThrows(IllegalArgumentException.class, () -> ChessGameCodec.decode(badPiece));
+
+        assertThrows(IllegalArgumentException.class, () -> ChessGameCodec.decode(new byte[3]));
+    }
+}
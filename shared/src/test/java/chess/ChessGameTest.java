@@ -0,0 +1,90 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChessGameTest {
+
+    @Test
+    void remembersMovesSincePly() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        ChessMove e4 = new ChessMove(ChessPosition.of(2, 5), ChessPosition.of(4, 5), null);
+        ChessMove e5 = new ChessMove(ChessPosition.of(7, 5), ChessPosition.of(5, 5), null);
+        game.makeMove(e4);
+        game.makeMove(e5);
+
+        assertEquals(2, game.getPly());
+        assertArrayEquals(new int[]{e4.encode(), e5.encode()}, game.getMovesSince(0));
+        assertArrayEquals(new int[]{e5.encode()}, new ChessGame(game).getMovesSince(1));
+        assertArrayEquals(new int[0], game.getMovesSince(2));
+        assertNull(game.getMovesSince(3));
+    }
+
+    @Test
+    void settingUpPositionRestartsPly() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(new ChessMove(ChessPosition.of(2, 5), ChessPosition.of(4, 5), null));
+
+        game.setBoard(new ChessGame().getBoard());
+        assertEquals(0, game.getPly());
+        assertArrayEquals(new int[0], game.getMovesSince(0));
+
+        ChessGame loaded = ChessGameCodec.decode(ChessGameCodec.encode(game));
+        loaded.restartPly(7);
+        assertNull(loaded.getMovesSince(6), "moves before the game was loaded aren't known");
+    }
+
+    @Test
+    void aFilePawnCapturesTowardBFile() {
+        // white pawn a4 with a black knight on b5 and a black pawn on a5 blocking its push
+        ChessGame game = ChessGame.fromFen("4k3/8/8/pn6/P7/8/8/4K3 w");
+        ChessPosition a4 = ChessPosition.of(4, 1);
+        assertEquals(List.of(new ChessMove(a4, ChessPosition.of(5, 2), null)), List.copyOf(game.validMoves(a4)));
+    }
+
+    @Test
+    void pawnOnLastRankHasNoPush() throws InvalidMoveException {
+        // FEN won't load a pawn on its last rank, but a board can still be set up that way by hand
+        // a white pawn on h8 used to wrap round to h1 as a "promotion"
+        ChessGame white = withPieces(ChessGame.TeamColor.WHITE, ChessPosition.of(8, 8),
+                new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+        assertTrue(white.validMoves(ChessPosition.of(8, 8)).isEmpty());
+        assertThrows(InvalidMoveException.class, () -> white.makeMove(
+                new ChessMove(ChessPosition.of(8, 8), ChessPosition.of(1, 8), ChessPiece.PieceType.KING)));
+
+        // and a black pawn on a1 used to wrap off the bottom of the board and throw
+        ChessGame black = withPieces(ChessGame.TeamColor.BLACK, ChessPosition.of(1, 1),
+                new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
+        assertTrue(black.validMoves(ChessPosition.of(1, 1)).isEmpty());
+        assertFalse(black.validMoves(ChessPosition.of(7, 5)).isEmpty());
+    }
+
+    @Test
+    void aFilePawnGivesCheck() {
+        // white pawn a5 attacks b6
+        ChessGame game = ChessGame.fromFen("8/8/1k6/P7/8/8/8/4K3 b");
+        assertTrue(game.isInCheck(ChessGame.TeamColor.BLACK));
+
+        // black pawn a6 attacks b5, so the white king on c4 can't step there
+        game = ChessGame.fromFen("3Q4/2b5/p3k3/P7/2K5/8/8/8 w");
+        assertFalse(game.validMoves(ChessPosition.of(4, 3)).contains(
+                new ChessMove(ChessPosition.of(4, 3), ChessPosition.of(5, 2), null)));
+    }
+
+    /**
+     * kings on e1 and e7 plus one more piece, with the given side to move
+     */
+    private static ChessGame withPieces(ChessGame.TeamColor turn, ChessPosition position, ChessPiece piece) {
+        ChessBoard board = new ChessBoard();
+        board.addPiece(ChessPosition.of(1, 5), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+        board.addPiece(ChessPosition.of(7, 5), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
+        board.addPiece(position, piece);
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+        game.setTeamTurn(turn);
+        return game;
+    }
+}
@@ -0,0 +1,65 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FenTest {
+
+    private static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w - - 0 1";
+
+    @Test
+    void startPosition() {
+        assertEquals(START_FEN, new ChessGame().toFen());
+        assertEquals(new ChessGame(), ChessGame.fromFen(START_FEN));
+    }
+
+    @ParameterizedTest
+    @EnumSource(Perft.Position.class)
+    void roundTripsPositions(Perft.Position position) {
+        ChessGame game = ChessGame.fromFen(position.getFen());
+        assertEquals(position.getFen().split(" ")[0], game.toFen().split(" ")[0]);
+        assertEquals(game, ChessGame.fromFen(game.toFen()));
+    }
+
+    @Test
+    void readsSideToMove() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(new ChessMove(ChessPosition.of(2, 4), ChessPosition.of(4, 4), null));
+
+        ChessGame loaded = ChessGame.fromFen(game.toFen());
+        assertEquals(ChessGame.TeamColor.BLACK, loaded.getTeamTurn());
+        assertEquals(game, loaded);
+        assertEquals(game.getZobristKey(), loaded.getZobristKey());
+    }
+
+    @Test
+    void optionalFieldsCanBeLeftOff() {
+        ChessGame game = ChessGame.fromFen("  4k3/8/8/8/8/8/8/4K2R  ");
+        assertEquals(ChessGame.TeamColor.WHITE, game.getTeamTurn());
+        assertEquals(new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK),
+                game.getBoard().getPiece(ChessPosition.of(1, 8)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "",
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP w",
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBN w",
+            "rnbqkbnr/pppppppp/9/8/8/8/PPPPPPPP/RNBQKBNR w",
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNRR w",
+            "rnbqkbnr/ppppxppp/8/8/8/8/PPPPPPPP/RNBQKBNR w",
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR x",
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR/8 w",
+            "7P/4k3/8/8/8/8/8/4K3 w",
+            "4k3/8/8/8/8/8/8/p3K3 b",
+            "4k2p/8/8/8/8/8/8/4K3 b",
+            "4k3/8/8/8/8/8/8/P3K3 w"
+    })
+    void rejectsMalformed(String fen) {
+        assertThrows(IllegalArgumentException.class, () -> ChessGame.fromFen(fen));
+    }
+}
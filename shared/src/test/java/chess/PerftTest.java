@@ -0,0 +1,37 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PerftTest {
+
+    @ParameterizedTest
+    @EnumSource(Perft.Position.class)
+    void matchesPublishedCounts(Perft.Position position) {
+        ChessGame game = ChessGame.fromFen(position.getFen());
+        for (int depth = 1; depth <= 3 && position.expectedNodes(depth) >= 0; depth++) {
+            assertEquals(position.expectedNodes(depth), Perft.perft(game, depth),
+                    position + " has wrong node count at depth " + depth);
+        }
+    }
+
+    @Test
+    void parallelMatchesSingleThreaded() {
+        ChessGame game = ChessGame.fromFen(Perft.Position.KIWIPETE.getFen());
+        assertEquals(Perft.perft(game, 3), Perft.parallelPerft(game, 3, ForkJoinPool.commonPool()));
+    }
+
+    @Test
+    void leavesGameUnchanged() {
+        ChessGame game = ChessGame.fromFen(Perft.Position.POSITION_6.getFen());
+        ChessGame before = new ChessGame(game);
+        Perft.perft(game, 2);
+        assertEquals(before, game, "perft should not change the game it searches");
+        assertEquals(before.getZobristKey(), game.getZobristKey());
+    }
+}
@@ -0,0 +1,42 @@
+package model;
+
+import chess.ChessGame;
+import org.junit.jupiter.api.Test;
+import serialization.Serializer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameDataTest {
+
+    @Test
+    void lazyGameIsDecodedOnceOnFirstUse() {
+        AtomicInteger decodes = new AtomicInteger();
+        GameData data = GameData.lazy(1, "white", null, "name", () -> {
+            decodes.incrementAndGet();
+            return new ChessGame();
+        }, false);
+
+        assertEquals("white", data.whiteUsername());
+        assertFalse(data.gameOver());
+        assertFalse(data.isGameLoaded());
+        assertEquals(0, decodes.get(), "reading the players shouldn't decode the game");
+
+        ChessGame game = data.game();
+        assertSame(game, data.game());
+        assertTrue(data.isGameLoaded());
+        assertEquals(1, decodes.get());
+    }
+
+    @Test
+    void lazyGameIsSerialized() {
+        GameData lazy = GameData.lazy(1, "white", null, "name", ChessGame::new, false);
+        GameData eager = new GameData(1, "white", null, "name", new ChessGame(), false);
+
+        assertEquals(Serializer.toJson(eager), Serializer.toJson(lazy));
+        assertEquals(eager, Serializer.fromJson(Serializer.toJson(lazy), GameData.class));
+        assertEquals(eager, lazy);
+        assertEquals(eager.hashCode(), lazy.hashCode());
+    }
+}
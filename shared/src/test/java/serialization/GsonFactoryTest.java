@@ -0,0 +1,80 @@
+package serialization;
+
+import chess.*;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GsonFactoryTest {
+
+    private final Gson gson = GsonFactory.gson();
+
+    @Test
+    void gameRoundTrips() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(new ChessMove(ChessPosition.of(2, 5), ChessPosition.of(4, 5), null));
+
+        String json = gson.toJson(game);
+        assertEquals("{\"gameBoard\":\"rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR\",\"turn\":\"BLACK\"}", json);
+        assertEquals(game, gson.fromJson(json, ChessGame.class));
+    }
+
+    @Test
+    void piecesUseFenLetters() {
+        ChessPiece whitePawn = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN);
+        ChessPiece blackKing = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING);
+        assertEquals("\"P\"", gson.toJson(whitePawn));
+        assertEquals("\"k\"", gson.toJson(blackKing));
+        assertEquals(blackKing, gson.fromJson("\"k\"", ChessPiece.class));
+        assertEquals(whitePawn, gson.fromJson("{\"pieceColor\":\"WHITE\",\"type\":\"PAWN\"}", ChessPiece.class));
+        assertThrows(JsonParseException.class, () -> gson.fromJson("\"x\"", ChessPiece.class));
+    }
+
+    @Test
+    void movesUseCoordinates() {
+        ChessMove move = new ChessMove(ChessPosition.of(2, 5), ChessPosition.of(4, 5), null);
+        ChessMove promotion = new ChessMove(ChessPosition.of(7, 1), ChessPosition.of(8, 2), ChessPiece.PieceType.KNIGHT);
+        assertEquals("\"e2e4\"", gson.toJson(move));
+        assertEquals("\"a7b8n\"", gson.toJson(promotion));
+        assertEquals(move, gson.fromJson("\"e2e4\"", ChessMove.class));
+        assertEquals(promotion, gson.fromJson("\"a7b8n\"", ChessMove.class));
+        assertThrows(JsonParseException.class, () -> gson.fromJson("\"e2e9\"", ChessMove.class));
+        assertThrows(JsonParseException.class, () -> gson.fromJson("\"e2e4x\"", ChessMove.class));
+    }
+
+    @Test
+    void readsLegacyMoves() {
+        String legacy = "{\"startPosition\":{\"row\":7,\"col\":1},\"endPosition\":{\"row\":8,\"col\":1},"
+                + "\"promotionPiece\":\"QUEEN\"}";
+        assertEquals(new ChessMove(ChessPosition.of(7, 1), ChessPosition.of(8, 1), ChessPiece.PieceType.QUEEN),
+                gson.fromJson(legacy, ChessMove.class));
+
+        // off-board moves can't be written as coordinates, so they keep the object form
+        ChessMove offBoard = new ChessMove(ChessPosition.of(0, 1), ChessPosition.of(1, 1), null);
+        assertEquals(offBoard, gson.fromJson(gson.toJson(offBoard), ChessMove.class));
+    }
+
+    @Test
+    void readsLegacyBoards() {
+        ChessGame game = ChessGame.fromFen(Perft.Position.KIWIPETE.getFen());
+
+        // the bitboard form plain Gson writes today
+        String bitboards = new Gson().toJson(game);
+        assertEquals(game, gson.fromJson(bitboards, ChessGame.class));
+
+        // the original 8x8 array form
+        StringBuilder squares = new StringBuilder("{\"gameBoard\":{\"squares\":[");
+        for (int row = 1; row <= 8; row++) {
+            squares.append(row > 1 ? ",[" : "[");
+            for (int col = 1; col <= 8; col++) {
+                ChessPiece piece = game.getBoard().getPiece(ChessPosition.of(row, col));
+                squares.append(col > 1 ? "," : "").append(piece == null ? "null" : new Gson().toJson(piece));
+            }
+            squares.append(']');
+        }
+        squares.append("]},\"turn\":\"WHITE\"}");
+        assertEquals(game, gson.fromJson(squares.toString(), ChessGame.class));
+    }
+}
@@ -0,0 +1,60 @@
+package serialization;
+
+import chess.ChessGame;
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import model.GameData;
+import org.junit.jupiter.api.Test;
+import websocket.messages.LoadGameMessage;
+import websocket.messages.ServerMessage;
+
+import java.io.StringReader;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SerializerTest {
+
+    @Test
+    void matchesSharedGson() {
+        GameData game = new GameData(7, "white", null, "name", new ChessGame(), false);
+        assertEquals(GsonFactory.gson().toJson(game), Serializer.toJson(game));
+        assertEquals(game, Serializer.fromJson(Serializer.toJson(game), GameData.class));
+
+        Map<String, Object> map = new HashMap<>();
+        map.put("message", "Error: bad request");
+        assertEquals(new Gson().toJson(map), Serializer.toJson(map));
+    }
+
+    @Test
+    void usesRuntimeClass() {
+        ServerMessage msg = new LoadGameMessage(new ChessGame());
+        String json = Serializer.toJson(msg);
+        assertTrue(json.contains("\"game\""), json);
+        assertEquals(new ChessGame(), Serializer.fromJson(json, LoadGameMessage.class).getGame());
+    }
+
+    @Test
+    void behavesLikeGsonAtTheEdges() {
+        assertEquals("null", Serializer.toJson(null));
+        assertNull(Serializer.fromJson((String) null, GameData.class));
+        assertNull(Serializer.fromJson("", GameData.class));
+        assertNull(Serializer.fromJson(new StringReader("   "), GameData.class));
+        assertThrows(JsonSyntaxException.class, () -> Serializer.fromJson("{} {}", GameData.class));
+        assertThrows(JsonSyntaxException.class, () -> Serializer.fromJson("[1]", GameData.class));
+        assertThrows(JsonSyntaxException.class, () -> Serializer.fromJson("{\"gameID\":", GameData.class));
+    }
+
+    @Test
+    void writesToAppendable() {
+        StringBuilder sb = new StringBuilder("x=");
+        Serializer.toJson(Map.of("a", 1), sb);
+        assertEquals("x={\"a\":1}", sb.toString());
+    }
+
+    @Test
+    void cachesAdapters() {
+        assertSame(Serializer.adapter(ChessGame.class), Serializer.adapter(ChessGame.class));
+    }
+}